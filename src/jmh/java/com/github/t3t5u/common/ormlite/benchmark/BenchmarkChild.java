@@ -0,0 +1,45 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import java.util.Collection;
+
+import com.github.t3t5u.common.ormlite.AbstractJoinableEntity;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.field.ForeignCollectionField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@SuppressWarnings("serial")
+@DatabaseTable(tableName = "benchmark_child")
+public class BenchmarkChild extends AbstractJoinableEntity {
+	@DatabaseField(generatedId = true)
+	private Long id;
+	@DatabaseField(foreign = true, index = true)
+	private BenchmarkParent parent;
+	@DatabaseField
+	private String name;
+	@ForeignCollectionField
+	private Collection<BenchmarkGrandChild> grandChildren;
+
+	public BenchmarkChild() {
+	}
+
+	public BenchmarkChild(final BenchmarkParent parent, final String name) {
+		this.parent = parent;
+		this.name = name;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public BenchmarkParent getParent() {
+		return parent;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Collection<BenchmarkGrandChild> getGrandChildren() {
+		return grandChildren;
+	}
+}
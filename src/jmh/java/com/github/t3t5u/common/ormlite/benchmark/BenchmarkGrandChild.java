@@ -0,0 +1,36 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import com.github.t3t5u.common.ormlite.AbstractJoinableEntity;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@SuppressWarnings("serial")
+@DatabaseTable(tableName = "benchmark_grand_child")
+public class BenchmarkGrandChild extends AbstractJoinableEntity {
+	@DatabaseField(generatedId = true)
+	private Long id;
+	@DatabaseField(foreign = true, index = true)
+	private BenchmarkChild child;
+	@DatabaseField
+	private int value;
+
+	public BenchmarkGrandChild() {
+	}
+
+	public BenchmarkGrandChild(final BenchmarkChild child, final int value) {
+		this.child = child;
+		this.value = value;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public BenchmarkChild getChild() {
+		return child;
+	}
+
+	public int getValue() {
+		return value;
+	}
+}
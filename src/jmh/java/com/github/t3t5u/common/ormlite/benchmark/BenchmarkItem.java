@@ -0,0 +1,46 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import com.github.t3t5u.common.ormlite.AbstractJoinableEntity;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@SuppressWarnings("serial")
+@DatabaseTable(tableName = "benchmark_item")
+public class BenchmarkItem extends AbstractJoinableEntity {
+	public static final String COLUMN_NAME_NAME = "name";
+	public static final String COLUMN_NAME_QUANTITY = "quantity";
+	@DatabaseField(generatedId = true)
+	private Long id;
+	@DatabaseField(columnName = COLUMN_NAME_NAME)
+	private String name;
+	@DatabaseField(columnName = COLUMN_NAME_QUANTITY, index = true)
+	private int quantity;
+
+	public BenchmarkItem() {
+	}
+
+	public BenchmarkItem(final String name, final int quantity) {
+		this.name = name;
+		this.quantity = quantity;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(final String name) {
+		this.name = name;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(final int quantity) {
+		this.quantity = quantity;
+	}
+}
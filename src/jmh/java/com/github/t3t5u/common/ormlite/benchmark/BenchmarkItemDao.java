@@ -0,0 +1,41 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import com.github.t3t5u.common.ormlite.AbstractDao;
+import com.github.t3t5u.common.ormlite.ColumnOrder;
+import com.github.t3t5u.common.ormlite.Database;
+import com.github.t3t5u.common.ormlite.EntityVisitor;
+import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+
+public class BenchmarkItemDao extends AbstractDao<BenchmarkItem> {
+	private static final ColumnOrder<BenchmarkItem> QUANTITY_DESC = new ColumnOrder<BenchmarkItem>(BenchmarkItem.COLUMN_NAME_QUANTITY, false);
+	private static final ColumnOrder<BenchmarkItem> NAME_ASC = new ColumnOrder<BenchmarkItem>(BenchmarkItem.COLUMN_NAME_NAME, true);
+
+	public BenchmarkItemDao(final Database database) {
+		super(database, BenchmarkItem.class);
+	}
+
+	public List<BenchmarkItem> findAllByMinimumQuantity(final int quantity) throws SQLException {
+		final QueryBuilder<BenchmarkItem, Long> queryBuilder = buildQuery();
+		queryBuilder.where().ge(BenchmarkItem.COLUMN_NAME_QUANTITY, new SelectArg(quantity));
+		return findAll(queryBuilder);
+	}
+
+	public long forEach(final EntityVisitor<BenchmarkItem> visitor) {
+		return forEach(buildQuery(), visitor);
+	}
+
+	@SuppressWarnings("unchecked")
+	public QueryBuilder<BenchmarkItem, Long> buildOrderedQuery() {
+		return buildQuery(QUANTITY_DESC, NAME_ASC);
+	}
+
+	@SuppressWarnings("unchecked")
+	public PreparedQuery<BenchmarkItem> prepareOrderedQuery() {
+		return prepareQuery(null, QUANTITY_DESC, NAME_ASC);
+	}
+}
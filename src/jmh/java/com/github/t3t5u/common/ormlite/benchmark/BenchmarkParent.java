@@ -0,0 +1,38 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import java.util.Collection;
+
+import com.github.t3t5u.common.ormlite.AbstractJoinableEntity;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.field.ForeignCollectionField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@SuppressWarnings("serial")
+@DatabaseTable(tableName = "benchmark_parent")
+public class BenchmarkParent extends AbstractJoinableEntity {
+	@DatabaseField(generatedId = true)
+	private Long id;
+	@DatabaseField
+	private String name;
+	@ForeignCollectionField
+	private Collection<BenchmarkChild> children;
+
+	public BenchmarkParent() {
+	}
+
+	public BenchmarkParent(final String name) {
+		this.name = name;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Collection<BenchmarkChild> getChildren() {
+		return children;
+	}
+}
@@ -0,0 +1,18 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import com.github.t3t5u.common.ormlite.AbstractCascadableDao;
+import com.github.t3t5u.common.ormlite.Database;
+
+public class BenchmarkParentDao extends AbstractCascadableDao<BenchmarkParent> {
+	private final int maxCascadeDepth;
+
+	public BenchmarkParentDao(final Database database, final int maxCascadeDepth) {
+		super(database, BenchmarkParent.class);
+		this.maxCascadeDepth = maxCascadeDepth;
+	}
+
+	@Override
+	protected int getMaxCascadeDepth() {
+		return maxCascadeDepth;
+	}
+}
@@ -0,0 +1,74 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.j256.ormlite.dao.Dao;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CascadeBenchmark {
+	private static final int PARENTS = 50;
+	private static final int CHILDREN = 5;
+	private static final int GRAND_CHILDREN = 5;
+	@Param({ "0", "1", "2" })
+	private int maxCascadeDepth;
+	private BenchmarkDatabase database;
+	private BenchmarkParentDao dao;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		database = new BenchmarkDatabase();
+		dao = new BenchmarkParentDao(database, maxCascadeDepth);
+		final Dao<BenchmarkChild, Long> childDao = database.getDao(BenchmarkChild.class);
+		final Dao<BenchmarkGrandChild, Long> grandChildDao = database.getDao(BenchmarkGrandChild.class);
+		for (int i = 0; i < PARENTS; i++) {
+			final BenchmarkParent parent = new BenchmarkParent("parent" + i);
+			dao.insert(parent);
+			for (int j = 0; j < CHILDREN; j++) {
+				final BenchmarkChild child = new BenchmarkChild(parent, "child" + j);
+				child.setCreatedAt(database.getNow());
+				childDao.create(child);
+				for (int k = 0; k < GRAND_CHILDREN; k++) {
+					final BenchmarkGrandChild grandChild = new BenchmarkGrandChild(child, k);
+					grandChild.setCreatedAt(database.getNow());
+					grandChildDao.create(grandChild);
+				}
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		database.close();
+	}
+
+	@Benchmark
+	public List<BenchmarkParent> findAllCascade() {
+		return dao.findAll(true);
+	}
+
+	@Benchmark
+	public List<BenchmarkParent> findAll() {
+		return dao.findAll(false);
+	}
+}
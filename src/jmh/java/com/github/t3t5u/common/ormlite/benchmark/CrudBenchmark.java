@@ -0,0 +1,79 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrudBenchmark {
+	private static final int ROWS = 1000;
+	private BenchmarkDatabase database;
+	private BenchmarkItemDao dao;
+	private List<BenchmarkItem> items;
+	private Random random;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		database = new BenchmarkDatabase();
+		dao = new BenchmarkItemDao(database);
+		items = new ArrayList<BenchmarkItem>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			items.add(new BenchmarkItem("item" + i, i));
+		}
+		dao.insertAll(items);
+		random = new Random(0);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		database.close();
+	}
+
+	@Benchmark
+	public BenchmarkItem find() {
+		return dao.find(nextItem().getId());
+	}
+
+	@Benchmark
+	public boolean insert() {
+		return dao.insert(new BenchmarkItem("inserted", random.nextInt(ROWS)));
+	}
+
+	@Benchmark
+	public boolean insertOrUpdate() {
+		final BenchmarkItem item = nextItem();
+		item.setQuantity(item.getQuantity() + 1);
+		return dao.insertOrUpdate(item);
+	}
+
+	@Benchmark
+	public boolean update() {
+		final BenchmarkItem item = nextItem();
+		item.setQuantity(item.getQuantity() + 1);
+		return dao.update(item);
+	}
+
+	private BenchmarkItem nextItem() {
+		return items.get(random.nextInt(ROWS));
+	}
+}
@@ -0,0 +1,57 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.stmt.QueryBuilder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuildingBenchmark {
+	private BenchmarkDatabase database;
+	private BenchmarkItemDao dao;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		database = new BenchmarkDatabase();
+		dao = new BenchmarkItemDao(database);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		database.close();
+	}
+
+	@Benchmark
+	public QueryBuilder<BenchmarkItem, Long> buildQuery() {
+		return dao.buildOrderedQuery();
+	}
+
+	@Benchmark
+	public PreparedQuery<BenchmarkItem> buildAndPrepareQuery() throws SQLException {
+		return dao.buildOrderedQuery().prepare();
+	}
+
+	@Benchmark
+	public PreparedQuery<BenchmarkItem> prepareCachedQuery() {
+		return dao.prepareOrderedQuery();
+	}
+}
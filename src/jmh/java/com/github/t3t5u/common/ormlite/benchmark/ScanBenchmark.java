@@ -0,0 +1,73 @@
+package com.github.t3t5u.common.ormlite.benchmark;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.t3t5u.common.ormlite.EntityVisitor;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanBenchmark {
+	@Param({ "100", "10000" })
+	private int rows;
+	private BenchmarkDatabase database;
+	private BenchmarkItemDao dao;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		database = new BenchmarkDatabase();
+		dao = new BenchmarkItemDao(database);
+		final List<BenchmarkItem> items = new ArrayList<BenchmarkItem>(rows);
+		for (int i = 0; i < rows; i++) {
+			items.add(new BenchmarkItem("item" + i, i));
+		}
+		dao.insertAll(items);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		database.close();
+	}
+
+	@Benchmark
+	public List<BenchmarkItem> findAll() {
+		return dao.findAll();
+	}
+
+	@Benchmark
+	public List<BenchmarkItem> findAllByMinimumQuantity() throws SQLException {
+		return dao.findAllByMinimumQuantity(rows / 2);
+	}
+
+	@Benchmark
+	public long forEach(final Blackhole blackhole) {
+		return dao.forEach(new EntityVisitor<BenchmarkItem>() {
+			@Override
+			public boolean visit(final BenchmarkItem entity) {
+				blackhole.consume(entity);
+				return true;
+			}
+		});
+	}
+}
@@ -1,36 +1,372 @@
 package com.github.t3t5u.common.ormlite;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.github.t3t5u.common.database.CascadableDao;
 import com.github.t3t5u.common.database.DatabaseUtils;
 import com.github.t3t5u.common.database.Entity;
+import com.github.t3t5u.common.database.WhereVisitor;
+import com.github.t3t5u.common.expression.Expression;
+import com.j256.ormlite.dao.BaseDaoImpl;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.Where;
+import com.j256.ormlite.table.TableInfo;
 
 public abstract class AbstractCascadableDao<E extends Entity> extends AbstractDao<E> implements CascadableDao<E> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractCascadableDao.class);
+
 	protected AbstractCascadableDao(final Database database, final Class<E> clazz) {
 		super(database, clazz);
 	}
 
 	protected E find(final QueryBuilder<E, Long> queryBuilder, final boolean cascade) {
-		return cascade ? DatabaseUtils.cascade(this, find(queryBuilder)) : find(queryBuilder);
+		return cascade ? cascade(find(queryBuilder)) : find(queryBuilder);
 	}
 
 	@Override
 	public List<E> findAll(final boolean cascade) {
-		return cascade ? DatabaseUtils.cascade(this, findAll()) : findAll();
+		return cascade ? cascade(findAll()) : findAll();
+	}
+
+	public List<E> findAllByIds(final Collection<Long> ids, final boolean cascade) {
+		return cascade ? cascade(findAllByIds(ids)) : findAllByIds(ids);
 	}
 
 	protected List<E> findAll(final QueryBuilder<E, Long> queryBuilder, final boolean cascade) {
-		return cascade ? DatabaseUtils.cascade(this, findAll(queryBuilder)) : findAll(queryBuilder);
+		return cascade ? cascade(findAll(queryBuilder)) : findAll(queryBuilder);
 	}
 
 	@Override
 	public long deleteAll(final boolean cascade) {
-		return DatabaseUtils.deleteAll(this, findAll(), cascade);
+		if (!isSetBasedDelete()) {
+			return DatabaseUtils.deleteAll(this, findAll(), cascade);
+		}
+		return deleteAll(buildQuery(), cascade);
 	}
 
 	protected long deleteAll(final QueryBuilder<E, Long> queryBuilder, final boolean cascade) {
-		return DatabaseUtils.deleteAll(this, findAll(queryBuilder), cascade);
+		if (!isSetBasedDelete()) {
+			return DatabaseUtils.deleteAll(this, findAll(queryBuilder), cascade);
+		}
+		if (queryBuilder == null) {
+			return 0;
+		}
+		final Database database = getDatabase();
+		final TableInfo<E, Long> tableInfo = getTableInfo();
+		final int maxParameters = getMaxParameters();
+		final boolean subqueryDelete = isSubqueryDelete();
+		final Map<String, List<Object>> deleted = new LinkedHashMap<String, List<Object>>();
+		try {
+			return inTransaction(new Callable<Long>() {
+				@Override
+				public Long call() throws SQLException {
+					final Set<Class<?>> path = new HashSet<Class<?>>();
+					path.add(tableInfo.getDataClass());
+					if (subqueryDelete) {
+						if (cascade) {
+							deleteForeignCollections(database, tableInfo, buildIdQuery(queryBuilder), path, deleted);
+						}
+						final DeleteBuilder<E, Long> deleteBuilder = getDao().deleteBuilder();
+						final Where<E, Long> where = getWhere(queryBuilder);
+						if (where != null) {
+							deleteBuilder.setWhere(where);
+						}
+						return (long) deleteBuilder.delete();
+					}
+					final List<Object> ids = new ArrayList<Object>(findIds(queryBuilder));
+					if (cascade) {
+						deleteForeignCollections(database, tableInfo, ids, path, deleted, maxParameters);
+					}
+					return deleteByIds(getDao(), tableInfo, ids, maxParameters);
+				}
+			});
+		} catch (final Throwable t) {
+			LOGGER.info("deleteAll", t);
+			return 0;
+		} finally {
+			invalidateAll();
+			for (final Map.Entry<String, List<Object>> entry : deleted.entrySet()) {
+				invalidateTable(entry.getKey());
+				if (entry.getValue() != null) {
+					invalidateEntities(entry.getKey(), toLongs(entry.getValue()));
+				} else {
+					invalidateEntities(entry.getKey());
+				}
+			}
+		}
+	}
+
+	protected long deleteAll(final Expression<Boolean> expression, final boolean cascade) {
+		return deleteAll(expression, null, cascade);
+	}
+
+	protected long deleteAll(final Expression<Boolean> expression, final WhereVisitor whereVisitor, final boolean cascade) {
+		if (!isSetBasedDelete()) {
+			return DatabaseUtils.deleteAll(this, findAll(buildQuery(expression, whereVisitor)), cascade);
+		}
+		return deleteAll(buildQuery(expression, whereVisitor), cascade);
+	}
+
+	protected int getMaxCascadeDepth() {
+		return 0;
+	}
+
+	protected boolean isSetBasedDelete() {
+		return false;
+	}
+
+	protected boolean isSubqueryDelete() {
+		return true;
+	}
+
+	private E cascade(final E entity) {
+		if (getMaxCascadeDepth() <= 0) {
+			return DatabaseUtils.cascade(this, entity);
+		}
+		if (entity != null) {
+			cascade(Collections.singletonList(entity));
+		}
+		return entity;
+	}
+
+	private List<E> cascade(final List<E> entities) {
+		final int maxCascadeDepth = getMaxCascadeDepth();
+		if (maxCascadeDepth <= 0) {
+			return DatabaseUtils.cascade(this, entities);
+		}
+		try {
+			final Set<Object> loaded = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+			loaded.addAll(entities);
+			cascade(getDatabase(), getTableInfo(), entities, loaded, maxCascadeDepth, getMaxParameters());
+		} catch (final Throwable t) {
+			LOGGER.info("cascade", t);
+		}
+		return entities;
+	}
+
+	private static void cascade(final Database database, final TableInfo<?, ?> tableInfo, final List<?> entities, final Set<Object> loaded, final int depth, final int maxParameters) throws SQLException {
+		if ((tableInfo == null) || (depth <= 0) || entities.isEmpty()) {
+			return;
+		}
+		for (final FieldType fieldType : tableInfo.getFieldTypes()) {
+			if (fieldType.isForeign()) {
+				cascadeForeign(database, fieldType, entities, loaded, depth, maxParameters);
+			}
+		}
+		for (final FieldType fieldType : tableInfo.getForeignCollections()) {
+			if (fieldType.getType().isAssignableFrom(ArrayList.class)) {
+				cascadeForeignCollection(database, tableInfo, fieldType, entities, loaded, depth, maxParameters);
+			}
+		}
+	}
+
+	private static void cascadeForeign(final Database database, final FieldType fieldType, final List<?> entities, final Set<Object> loaded, final int depth, final int maxParameters) throws SQLException {
+		final Map<Object, List<Object>> owners = new LinkedHashMap<Object, List<Object>>();
+		for (final Object entity : entities) {
+			if (!loaded.contains(fieldType.extractRawJavaFieldValue(entity))) {
+				put(owners, fieldType.extractJavaFieldValue(entity), entity);
+			}
+		}
+		final Dao<Entity, Long> foreignDao = getDao(database, fieldType.getType());
+		final TableInfo<Entity, Long> foreignTableInfo = getTableInfo(foreignDao);
+		if (owners.isEmpty() || (foreignTableInfo == null)) {
+			return;
+		}
+		final FieldType idField = foreignTableInfo.getIdField();
+		final List<Entity> foreigns = new ArrayList<Entity>();
+		for (final List<Object> ids : partition(owners.keySet(), maxParameters)) {
+			for (final Entity foreign : foreignDao.queryBuilder().where().in(idField.getColumnName(), ids).query()) {
+				final List<Object> list = owners.get(idField.extractJavaFieldValue(foreign));
+				if (list == null) {
+					continue;
+				}
+				for (final Object owner : list) {
+					fieldType.assignField(owner, foreign, true, null);
+				}
+				foreigns.add(foreign);
+			}
+		}
+		loaded.addAll(foreigns);
+		cascade(database, foreignTableInfo, foreigns, loaded, depth - 1, maxParameters);
+	}
+
+	private static void cascadeForeignCollection(final Database database, final TableInfo<?, ?> tableInfo, final FieldType fieldType, final List<?> entities, final Set<Object> loaded, final int depth, final int maxParameters) throws SQLException {
+		final Dao<Entity, Long> childDao = getDao(database, getChildClass(fieldType));
+		final TableInfo<Entity, Long> childTableInfo = getTableInfo(childDao);
+		final FieldType parentField = childTableInfo != null ? findForeignField(childTableInfo, tableInfo.getDataClass()) : null;
+		if (parentField == null) {
+			return;
+		}
+		final FieldType idField = tableInfo.getIdField();
+		final Map<Object, Object> parents = new LinkedHashMap<Object, Object>();
+		for (final Object entity : entities) {
+			final Object id = idField.extractJavaFieldValue(entity);
+			if (id != null) {
+				parents.put(id, entity);
+			}
+		}
+		final Map<Object, List<Object>> children = new LinkedHashMap<Object, List<Object>>();
+		final List<Entity> all = new ArrayList<Entity>();
+		for (final List<Object> ids : partition(parents.keySet(), maxParameters)) {
+			for (final Entity child : childDao.queryBuilder().where().in(parentField.getColumnName(), ids).query()) {
+				final Object parentId = parentField.extractJavaFieldValue(child);
+				final Object parent = parents.get(parentId);
+				if (parent != null) {
+					parentField.assignField(child, parent, true, null);
+				}
+				put(children, parentId, child);
+				all.add(child);
+			}
+		}
+		for (final Map.Entry<Object, Object> entry : parents.entrySet()) {
+			final List<Object> list = children.get(entry.getKey());
+			fieldType.assignField(entry.getValue(), list != null ? list : new ArrayList<Object>(), false, null);
+		}
+		loaded.addAll(all);
+		cascade(database, childTableInfo, all, loaded, depth - 1, maxParameters);
+	}
+
+	private static void deleteForeignCollections(final Database database, final TableInfo<?, ?> tableInfo, final QueryBuilder<?, ?> idQueryBuilder, final Set<Class<?>> path, final Map<String, List<Object>> deleted) throws SQLException {
+		for (final FieldType fieldType : tableInfo.getForeignCollections()) {
+			final Dao<Entity, Long> childDao = getDao(database, getChildClass(fieldType));
+			final TableInfo<Entity, Long> childTableInfo = getTableInfo(childDao);
+			final FieldType parentField = childTableInfo != null ? findForeignField(childTableInfo, tableInfo.getDataClass()) : null;
+			if ((parentField == null) || !path.add(childTableInfo.getDataClass())) {
+				continue;
+			}
+			final QueryBuilder<Entity, Long> childIdQueryBuilder = childDao.queryBuilder();
+			childIdQueryBuilder.selectColumns(childTableInfo.getIdField().getColumnName()).where().in(parentField.getColumnName(), idQueryBuilder);
+			deleteForeignCollections(database, childTableInfo, childIdQueryBuilder, path, deleted);
+			final DeleteBuilder<Entity, Long> deleteBuilder = childDao.deleteBuilder();
+			deleteBuilder.where().in(parentField.getColumnName(), idQueryBuilder);
+			final long result = deleteBuilder.delete();
+			deleted.put(childTableInfo.getTableName(), null);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("deleteForeignCollections: {}, {}", childTableInfo.getTableName(), result);
+			}
+			path.remove(childTableInfo.getDataClass());
+		}
+	}
+
+	private static void deleteForeignCollections(final Database database, final TableInfo<?, ?> tableInfo, final List<Object> ids, final Set<Class<?>> path, final Map<String, List<Object>> deleted, final int maxParameters) throws SQLException {
+		if (ids.isEmpty()) {
+			return;
+		}
+		for (final FieldType fieldType : tableInfo.getForeignCollections()) {
+			final Dao<Entity, Long> childDao = getDao(database, getChildClass(fieldType));
+			final TableInfo<Entity, Long> childTableInfo = getTableInfo(childDao);
+			final FieldType parentField = childTableInfo != null ? findForeignField(childTableInfo, tableInfo.getDataClass()) : null;
+			if ((parentField == null) || !path.add(childTableInfo.getDataClass())) {
+				continue;
+			}
+			final FieldType childIdField = childTableInfo.getIdField();
+			final List<Object> childIds = new ArrayList<Object>();
+			for (final List<Object> chunk : partition(ids, maxParameters)) {
+				final QueryBuilder<Entity, Long> childIdQueryBuilder = childDao.queryBuilder();
+				childIdQueryBuilder.selectColumns(childIdField.getColumnName()).where().in(parentField.getColumnName(), chunk);
+				for (final String[] row : childIdQueryBuilder.queryRaw().getResults()) {
+					childIds.add(Long.valueOf(row[0]));
+				}
+			}
+			deleteForeignCollections(database, childTableInfo, childIds, path, deleted, maxParameters);
+			final long result = deleteByIds(childDao, childTableInfo, childIds, maxParameters);
+			putAll(deleted, childTableInfo.getTableName(), childIds);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("deleteForeignCollections: {}, {}", childTableInfo.getTableName(), result);
+			}
+			path.remove(childTableInfo.getDataClass());
+		}
+	}
+
+	private static <T> long deleteByIds(final Dao<T, Long> dao, final TableInfo<T, Long> tableInfo, final List<Object> ids, final int maxParameters) throws SQLException {
+		long result = 0;
+		for (final List<Object> chunk : partition(ids, maxParameters)) {
+			final DeleteBuilder<T, Long> deleteBuilder = dao.deleteBuilder();
+			deleteBuilder.where().in(tableInfo.getIdField().getColumnName(), chunk);
+			result += deleteBuilder.delete();
+		}
+		return result;
+	}
+
+	private static List<Long> toLongs(final List<Object> ids) {
+		final List<Long> result = new ArrayList<Long>(ids.size());
+		for (final Object id : ids) {
+			if (id instanceof Number) {
+				result.add(((Number) id).longValue());
+			}
+		}
+		return result;
+	}
+
+	private static Class<?> getChildClass(final FieldType fieldType) {
+		final Type type = fieldType.getField().getGenericType();
+		final Type childType = type instanceof ParameterizedType ? ((ParameterizedType) type).getActualTypeArguments()[0] : null;
+		return childType instanceof Class ? (Class<?>) childType : null;
+	}
+
+	private static FieldType findForeignField(final TableInfo<?, ?> tableInfo, final Class<?> clazz) {
+		for (final FieldType fieldType : tableInfo.getFieldTypes()) {
+			if (fieldType.isForeign() && fieldType.getType().isAssignableFrom(clazz)) {
+				return fieldType;
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Dao<Entity, Long> getDao(final Database database, final Class<?> clazz) {
+		return (clazz != null) && Entity.class.isAssignableFrom(clazz) ? database.getDao((Class<Entity>) clazz) : null;
+	}
+
+	private static TableInfo<Entity, Long> getTableInfo(final Dao<Entity, Long> dao) {
+		return dao instanceof BaseDaoImpl ? ((BaseDaoImpl<Entity, Long>) dao).getTableInfo() : null;
+	}
+
+	private static void put(final Map<Object, List<Object>> map, final Object key, final Object value) {
+		if (key == null) {
+			return;
+		}
+		List<Object> list = map.get(key);
+		if (list == null) {
+			list = new ArrayList<Object>();
+			map.put(key, list);
+		}
+		list.add(value);
+	}
+
+	private static void putAll(final Map<String, List<Object>> map, final String key, final List<Object> values) {
+		List<Object> list = map.get(key);
+		if (list == null) {
+			list = new ArrayList<Object>();
+			map.put(key, list);
+		}
+		list.addAll(values);
+	}
+
+	private static List<List<Object>> partition(final Collection<Object> values, final int size) {
+		final List<Object> list = new ArrayList<Object>(values);
+		final List<List<Object>> result = new ArrayList<List<Object>>();
+		for (int i = 0; i < list.size(); i += size) {
+			result.add(list.subList(i, Math.min(i + size, list.size())));
+		}
+		return result;
 	}
 }
@@ -1,11 +1,29 @@
 package com.github.t3t5u.common.ormlite;
 
+import java.io.Closeable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,47 +32,162 @@ import com.github.t3t5u.common.database.Transactional;
 import com.github.t3t5u.common.database.WhereVisitor;
 import com.github.t3t5u.common.expression.Expression;
 import com.j256.ormlite.dao.BaseDaoImpl;
+import com.j256.ormlite.dao.CloseableIterator;
 import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.Dao.CreateOrUpdateStatus;
+import com.j256.ormlite.dao.RawRowMapper;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.stmt.ArgumentHolder;
 import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.PreparedDelete;
 import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.stmt.PreparedStmt;
 import com.j256.ormlite.stmt.PreparedUpdate;
 import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
 import com.j256.ormlite.stmt.StatementBuilder;
+import com.j256.ormlite.stmt.StatementBuilder.StatementInfo;
+import com.j256.ormlite.stmt.StatementBuilder.StatementType;
 import com.j256.ormlite.stmt.UpdateBuilder;
+import com.j256.ormlite.stmt.Where;
+import com.j256.ormlite.support.CompiledStatement;
+import com.j256.ormlite.support.ConnectionSource;
 import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.support.DatabaseResults;
 import com.j256.ormlite.table.TableInfo;
 
-public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.common.database.Dao<E>, Transactional {
-	private static final ThreadLocal<DatabaseConnection> CONNECTION = new ThreadLocal<DatabaseConnection>();
+public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.common.database.Dao<E>, Transactional, Closeable {
+	private static final ThreadLocal<Map<ConnectionSource, Transaction>> TRANSACTIONS = new ThreadLocal<Map<ConnectionSource, Transaction>>();
 	private static final WhereVisitor WHERE_VISITOR = new WhereVisitor();
+	protected static final WhereVisitor ARGUMENT_WHERE_VISITOR = new ArgumentWhereVisitor();
 	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractDao.class);
+	private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+	private static final int DEFAULT_BATCH_SIZE = 500;
+	private static final int DEFAULT_MAX_PARAMETERS = 999;
+	private static final long DEFAULT_READ_YOUR_WRITES_WINDOW = 1000;
+	private static final long DEFAULT_WRITE_BEHIND_INTERVAL = 1000;
+	private static final int DEFAULT_WRITE_BEHIND_RETRIES = 3;
+	private static final String SAVEPOINT_PREFIX = "SAVEPOINT";
+	private static final FieldType[] NO_FIELD_TYPES = new FieldType[0];
+	private static final AtomicLong SAVEPOINT_SEQUENCE = new AtomicLong();
+	private static final ConcurrentMap<Class<?>, String> DESCRIPTORS = new ConcurrentHashMap<Class<?>, String>();
+	private static final Field WHERE = getWhereField();
 	private final Database database;
 	private final Dao<E, Long> dao;
+	private final String tableName;
+	private final Class<E> clazz;
+	private final Object hooksLock = new Object();
+	private volatile Hooks<E> hooks;
 
 	protected AbstractDao(final Database database, final Class<E> clazz) {
 		this.database = database;
 		this.dao = database.getDao(clazz);
+		final TableInfo<E, Long> tableInfo = getTableInfo();
+		this.tableName = tableInfo != null ? tableInfo.getTableName() : clazz.getName();
+		this.clazz = clazz;
 	}
 
 	@Override
 	public E find(final long id) {
+		final EntityCache<E> entityCache = getTransaction() == null ? hooks().entityCache : null;
+		final long start = start();
+		final E cached = entityCache != null ? entityCache.get(id) : null;
+		if (cached != null) {
+			record(DaoOperation.FIND, start, 1, null, id);
+			return cached;
+		}
+		final Dao<E, Long> readDao = acquireReadDao();
 		try {
-			return find(dao, id);
+			final long version = ResultCache.getVersion(tableName);
+			final E result = coalesceFind(readDao, id);
+			if (isEntityCacheable(entityCache, readDao)) {
+				putCachedEntity(entityCache, version, id, result);
+			}
+			record(DaoOperation.FIND, start, result != null ? 1 : 0, null, id);
+			return result;
 		} catch (final Throwable t) {
+			record(DaoOperation.FIND, start, 0, t, id);
 			LOGGER.info("find", t);
 			return null;
+		} finally {
+			releaseReadDao(readDao);
 		}
 	}
 
 	@Override
 	public List<E> findAll() {
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
 		try {
-			return findAll(dao);
+			final List<E> result = findAll(readDao);
+			record(DaoOperation.FIND_ALL, start, result.size(), null);
+			return result;
 		} catch (final Throwable t) {
+			record(DaoOperation.FIND_ALL, start, 0, t);
 			LOGGER.info("findAll", t);
 			return Collections.emptyList();
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	public List<E> findAllByIds(final long... ids) {
+		if (ids == null) {
+			return Collections.emptyList();
+		}
+		final List<Long> list = new ArrayList<Long>(ids.length);
+		for (final long id : ids) {
+			list.add(id);
+		}
+		return findAllByIds(list);
+	}
+
+	public List<E> findAllByIds(final Collection<Long> ids) {
+		return new ArrayList<E>(findMapByIds(ids).values());
+	}
+
+	public Map<Long, E> findMapByIds(final Collection<Long> ids) {
+		if ((ids == null) || ids.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		final EntityCache<E> entityCache = getTransaction() == null ? hooks().entityCache : null;
+		final long start = start();
+		final Map<Long, E> result = new LinkedHashMap<Long, E>();
+		final List<Long> missingIds = new ArrayList<Long>();
+		for (final Long id : ids) {
+			if ((id == null) || result.containsKey(id)) {
+				continue;
+			}
+			final E cached = entityCache != null ? entityCache.get(id) : null;
+			result.put(id, cached);
+			if (cached == null) {
+				missingIds.add(id);
+			}
+		}
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final String idColumnName = getTableInfo().getIdField().getColumnName();
+			final int maxParameters = Math.max(1, getMaxParameters());
+			final long version = ResultCache.getVersion(tableName);
+			final boolean cacheable = isEntityCacheable(entityCache, readDao);
+			for (int i = 0; i < missingIds.size(); i += maxParameters) {
+				for (final E entity : findAll(readDao, idColumnName, missingIds.subList(i, Math.min(i + maxParameters, missingIds.size())))) {
+					final Long id = readDao.extractId(entity);
+					result.put(id, entity);
+					if (cacheable) {
+						putCachedEntity(entityCache, version, id, entity);
+					}
+				}
+			}
+			result.values().removeAll(Collections.singleton(null));
+			record(DaoOperation.FIND_ALL, start, result.size(), null);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.FIND_ALL, start, 0, t);
+			LOGGER.info("findMapByIds", t);
+			return Collections.emptyMap();
+		} finally {
+			releaseReadDao(readDao);
 		}
 	}
 
@@ -64,11 +197,17 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 			return false;
 		}
 		final Date now = getNow();
+		final long start = start();
 		try {
-			return insert(dao, entity, now);
+			final boolean result = insert(dao, entity, now);
+			record(DaoOperation.INSERT, start, result ? 1 : 0, null);
+			return result;
 		} catch (final Throwable t) {
+			record(DaoOperation.INSERT, start, 0, t);
 			LOGGER.info("insert", t);
 			return false;
+		} finally {
+			invalidate(entity);
 		}
 	}
 
@@ -78,11 +217,17 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 			return false;
 		}
 		final Date now = getNow();
+		final long start = start();
 		try {
-			return insertOrUpdate(dao, entity, now);
+			final boolean result = insertOrUpdate(dao, hooks().nativeUpsert, entity, now);
+			record(DaoOperation.INSERT_OR_UPDATE, start, result ? 1 : 0, null);
+			return result;
 		} catch (final Throwable t) {
+			record(DaoOperation.INSERT_OR_UPDATE, start, 0, t);
 			LOGGER.info("insertOrUpdate", t);
 			return false;
+		} finally {
+			invalidate(entity);
 		}
 	}
 
@@ -92,11 +237,17 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 			return false;
 		}
 		final Date now = getNow();
+		final long start = start();
 		try {
-			return update(dao, entity, now);
+			final boolean result = update(dao, entity, now);
+			record(DaoOperation.UPDATE, start, result ? 1 : 0, null);
+			return result;
 		} catch (final Throwable t) {
+			record(DaoOperation.UPDATE, start, 0, t);
 			LOGGER.info("update", t);
 			return false;
+		} finally {
+			invalidate(entity);
 		}
 	}
 
@@ -105,88 +256,238 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		if (entity == null) {
 			return false;
 		}
+		final long start = start();
 		try {
-			return delete(dao, entity);
+			final boolean result = delete(dao, entity);
+			record(DaoOperation.DELETE, start, result ? 1 : 0, null);
+			return result;
 		} catch (final Throwable t) {
+			record(DaoOperation.DELETE, start, 0, t);
 			LOGGER.info("delete", t);
 			return false;
+		} finally {
+			invalidate(entity);
 		}
 	}
 
 	@Override
 	public long deleteAll() {
 		try {
-			return deleteAll(dao);
+			return deleteAllOrThrow();
 		} catch (final Throwable t) {
 			LOGGER.info("deleteAll", t);
 			return 0;
 		}
 	}
 
+	protected long deleteAllOrThrow() throws SQLException {
+		final long start = start();
+		try {
+			final long result = deleteAll(dao);
+			record(DaoOperation.DELETE_ALL, start, result, null);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.DELETE_ALL, start, 0, t);
+			throw t;
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	public long[] insertAll(final Collection<E> entities) {
+		return writeAll(DaoOperation.INSERT_ALL, "insertAll", entities, new EntityWriter<E>() {
+			@Override
+			public long write(final Dao<E, Long> dao, final List<E> entities, final Date now) throws SQLException {
+				long result = 0;
+				for (final E entity : entities) {
+					result += insert(dao, entity, now) ? 1 : 0;
+				}
+				return result;
+			}
+		});
+	}
+
+	public long[] insertOrUpdateAll(final Collection<E> entities) {
+		return writeAll(DaoOperation.INSERT_OR_UPDATE_ALL, "insertOrUpdateAll", entities, new EntityWriter<E>() {
+			@Override
+			public long write(final Dao<E, Long> dao, final List<E> entities, final Date now) throws SQLException {
+				long result = 0;
+				for (final E entity : entities) {
+					result += insertOrUpdate(dao, hooks().nativeUpsert, entity, now) ? 1 : 0;
+				}
+				return result;
+			}
+		});
+	}
+
+	public boolean writeBehind(final E entity) {
+		final WriteBehindBuffer<E> writeBehindBuffer = hooks().writeBehindBuffer;
+		if ((writeBehindBuffer == null) || (getTransaction() != null)) {
+			return insertOrUpdate(entity);
+		}
+		return writeBehindBuffer.write(entity);
+	}
+
+	public int flush() {
+		final WriteBehindBuffer<E> writeBehindBuffer = hooks().writeBehindBuffer;
+		return writeBehindBuffer != null ? writeBehindBuffer.flush() : 0;
+	}
+
+	@Override
+	public void close() {
+		final WriteBehindBuffer<E> writeBehindBuffer = hooks().writeBehindBuffer;
+		if (writeBehindBuffer != null) {
+			writeBehindBuffer.close();
+		}
+	}
+
+	public long[] updateAll(final Collection<E> entities) {
+		return writeAll(DaoOperation.UPDATE_ALL, "updateAll", entities, new EntityWriter<E>() {
+			@Override
+			public long write(final Dao<E, Long> dao, final List<E> entities, final Date now) throws SQLException {
+				long result = 0;
+				for (final E entity : entities) {
+					result += update(dao, entity, now) ? 1 : 0;
+				}
+				return result;
+			}
+		});
+	}
+
+	public long[] deleteAll(final Collection<E> entities) {
+		return writeAll(DaoOperation.DELETE_ALL, "deleteAll", entities, new EntityWriter<E>() {
+			@Override
+			public long write(final Dao<E, Long> dao, final List<E> entities, final Date now) throws SQLException {
+				return AbstractDao.deleteAll(dao, entities);
+			}
+		});
+	}
+
 	@Override
 	public long count() {
 		try {
-			return count(dao);
+			return countOrThrow();
 		} catch (final Throwable t) {
 			LOGGER.info("count", t);
 			return 0;
 		}
 	}
 
+	protected long countOrThrow() throws SQLException {
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final long result = count(readDao);
+			record(DaoOperation.COUNT, start, 1, null);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.COUNT, start, 0, t);
+			throw t;
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
 	@Override
 	public void begin() {
-		if (CONNECTION.get() != null) {
+		if (getTransaction() != null) {
 			throw new IllegalStateException();
 		}
 		final DatabaseConnection connection;
+		final long start = start();
 		try {
 			connection = begin(dao);
 		} catch (final SQLException e) {
+			record(DaoOperation.BEGIN, start, 0, e);
 			LOGGER.warn("begin", e);
 			throw new RuntimeException(e);
 		}
-		CONNECTION.set(connection);
+		record(DaoOperation.BEGIN, start, 0, null);
+		putTransaction(new Transaction(connection));
 	}
 
 	@Override
 	public void commit() {
-		final DatabaseConnection connection = CONNECTION.get();
-		if (connection == null) {
+		final Transaction transaction = getTransaction();
+		if (transaction == null) {
 			throw new IllegalStateException();
 		}
+		final long start = start();
 		try {
-			commit(dao, connection);
+			commit(dao, transaction.connection);
 		} catch (final SQLException e) {
+			record(DaoOperation.COMMIT, start, 0, e);
 			LOGGER.warn("commit", e);
 			throw new RuntimeException(e);
 		}
-		CONNECTION.remove();
+		record(DaoOperation.COMMIT, start, 0, null);
+		removeTransaction();
+		transaction.invalidateDirtyTables();
+		transaction.markDirtyTablesWritten();
 	}
 
 	@Override
 	public void rollback() {
-		final DatabaseConnection connection = CONNECTION.get();
-		if (connection == null) {
+		final Transaction transaction = getTransaction();
+		if (transaction == null) {
 			return;
 		}
-		CONNECTION.remove();
+		removeTransaction();
+		invalidateAll();
+		transaction.invalidateDirtyTables();
+		final long start = start();
 		try {
-			rollback(dao, connection);
+			rollback(dao, transaction.connection);
 		} catch (final SQLException e) {
+			record(DaoOperation.ROLLBACK, start, 0, e);
 			LOGGER.warn("rollback", e);
 			throw new RuntimeException(e);
 		}
+		record(DaoOperation.ROLLBACK, start, 0, null);
 	}
 
+	public <T> T inTransaction(final Callable<T> callable) {
+		if (callable == null) {
+			return null;
+		}
+		final Transaction transaction = getTransaction();
+		return transaction != null ? inNestedTransaction(transaction.connection, callable) : inNewTransaction(callable);
+	}
+
+	@SuppressWarnings("unchecked")
 	protected E find(final QueryBuilder<E, Long> queryBuilder) {
+		final ResultCache resultCache = hooks().resultCache;
 		if (queryBuilder == null) {
 			return null;
 		}
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
 		try {
-			return find(dao, queryBuilder);
+			final E result;
+			if (!isResultCacheable()) {
+				result = find(readDao, queryBuilder);
+			} else {
+				final Object key = ResultCache.toKey("find", queryBuilder.prepareStatementInfo());
+				final E cached = (E) resultCache.get(key);
+				if (cached != null) {
+					result = cached;
+				} else {
+					final String[] tables = ResultCache.getTables(queryBuilder, tableName);
+					final long[] versions = ResultCache.getVersions(tables);
+					result = find(readDao, queryBuilder);
+					if (readDao == dao) {
+						resultCache.put(key, result, tables, versions);
+					}
+				}
+			}
+			record(DaoOperation.FIND, start, result != null ? 1 : 0, null, queryBuilder);
+			return result;
 		} catch (final Throwable t) {
+			record(DaoOperation.FIND, start, 0, t, queryBuilder);
 			LOGGER.info("find", t);
 			return null;
+		} finally {
+			releaseReadDao(readDao);
 		}
 	}
 
@@ -195,23 +496,123 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 			return Collections.emptyList();
 		}
 		try {
-			return findAll(dao, queryBuilder);
+			return findAllOrThrow(queryBuilder);
 		} catch (final Throwable t) {
 			LOGGER.info("findAll", t);
 			return Collections.emptyList();
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	protected List<E> findAllOrThrow(final QueryBuilder<E, Long> queryBuilder) throws Exception {
+		final ResultCache resultCache = hooks().resultCache;
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final List<E> result;
+			if (!isResultCacheable()) {
+				result = coalesceFindAll(readDao, queryBuilder, null);
+			} else {
+				final Object key = ResultCache.toKey("findAll", queryBuilder.prepareStatementInfo());
+				final List<E> cached = (List<E>) resultCache.get(key);
+				if (cached != null) {
+					result = new ArrayList<E>(cached);
+				} else {
+					final String[] tables = ResultCache.getTables(queryBuilder, tableName);
+					final long[] versions = ResultCache.getVersions(tables);
+					result = coalesceFindAll(readDao, queryBuilder, key);
+					if (readDao == dao) {
+						resultCache.put(key, new ArrayList<E>(result), tables, versions);
+					}
+				}
+			}
+			record(DaoOperation.FIND_ALL, start, result.size(), null, queryBuilder);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.FIND_ALL, start, 0, t, queryBuilder);
+			throw t;
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	protected CloseableIterator<E> iterate(final QueryBuilder<E, Long> queryBuilder) {
+		if (queryBuilder == null) {
+			return null;
+		}
+		try {
+			return iterate(queryBuilder.prepare());
+		} catch (final SQLException e) {
+			LOGGER.warn("iterate", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	protected CloseableIterator<E> iterate(final PreparedQuery<E> preparedQuery) {
+		if (preparedQuery == null) {
+			return null;
+		}
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final CloseableIterator<E> result = new ReadIterator(readDao, iterate(readDao, preparedQuery));
+			record(DaoOperation.ITERATE, start, 0, null, preparedQuery);
+			return result;
+		} catch (final SQLException e) {
+			releaseReadDao(readDao);
+			record(DaoOperation.ITERATE, start, 0, e, preparedQuery);
+			LOGGER.warn("iterate", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	protected long forEach(final QueryBuilder<E, Long> queryBuilder, final EntityVisitor<E> visitor) {
+		if ((queryBuilder == null) || (visitor == null)) {
+			return 0;
+		}
+		try {
+			return forEach(queryBuilder.prepare(), visitor);
+		} catch (final SQLException e) {
+			LOGGER.warn("forEach", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	protected long forEach(final PreparedQuery<E> preparedQuery, final EntityVisitor<E> visitor) {
+		if ((preparedQuery == null) || (visitor == null)) {
+			return 0;
+		}
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final long result = forEach(readDao, preparedQuery, visitor);
+			record(DaoOperation.FOR_EACH, start, result, null, preparedQuery);
+			return result;
+		} catch (final SQLException e) {
+			record(DaoOperation.FOR_EACH, start, 0, e, preparedQuery);
+			LOGGER.warn("forEach", e);
+			throw new RuntimeException(e);
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
 	protected long updateAll(final UpdateBuilder<E, Long> updateBuilder) {
 		if (updateBuilder == null) {
 			return 0;
 		}
 		final Date now = getNow();
+		final long start = start();
 		try {
-			return updateAll(dao, updateBuilder, now);
+			final long result = updateAll(dao, updateBuilder, now);
+			record(DaoOperation.UPDATE_ALL, start, result, null, updateBuilder);
+			return result;
 		} catch (final Throwable t) {
+			record(DaoOperation.UPDATE_ALL, start, 0, t, updateBuilder);
 			LOGGER.info("updateAll", t);
 			return 0;
+		} finally {
+			invalidateAll();
 		}
 	}
 
@@ -220,27 +621,440 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 			return 0;
 		}
 		try {
-			return deleteAll(dao, deleteBuilder);
+			return deleteAllOrThrow(deleteBuilder);
 		} catch (final Throwable t) {
 			LOGGER.info("deleteAll", t);
 			return 0;
 		}
 	}
 
+	protected long deleteAllOrThrow(final DeleteBuilder<E, Long> deleteBuilder) throws SQLException {
+		final long start = start();
+		try {
+			final long result = deleteAll(dao, deleteBuilder);
+			record(DaoOperation.DELETE_ALL, start, result, null, deleteBuilder);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.DELETE_ALL, start, 0, t, deleteBuilder);
+			throw t;
+		} finally {
+			invalidateAll();
+		}
+	}
+
 	protected long count(final QueryBuilder<E, Long> queryBuilder) {
 		if (queryBuilder == null) {
 			return 0;
 		}
 		try {
-			return count(dao, queryBuilder);
+			return countOrThrow(queryBuilder);
+		} catch (final Throwable t) {
+			LOGGER.info("count", t);
+			return 0;
+		}
+	}
+
+	protected long countOrThrow(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
+		final ResultCache resultCache = hooks().resultCache;
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final long result;
+			if (!isResultCacheable()) {
+				result = count(readDao, queryBuilder);
+			} else {
+				final Object key = ResultCache.toKey("count", queryBuilder.setCountOf(true).prepareStatementInfo());
+				final Long cached = (Long) resultCache.get(key);
+				if (cached != null) {
+					result = cached;
+				} else {
+					final String[] tables = ResultCache.getTables(queryBuilder, tableName);
+					final long[] versions = ResultCache.getVersions(tables);
+					result = count(readDao, queryBuilder);
+					if (readDao == dao) {
+						resultCache.put(key, result, tables, versions);
+					}
+				}
+			}
+			record(DaoOperation.COUNT, start, 1, null, queryBuilder);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.COUNT, start, 0, t, queryBuilder);
+			throw t;
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	protected E find(final PreparedQuery<E> preparedQuery) {
+		if (preparedQuery == null) {
+			return null;
+		}
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final E result = find(readDao, preparedQuery);
+			record(DaoOperation.FIND, start, result != null ? 1 : 0, null, preparedQuery);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.FIND, start, 0, t, preparedQuery);
+			LOGGER.info("find", t);
+			return null;
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	protected List<E> findAll(final PreparedQuery<E> preparedQuery) {
+		if (preparedQuery == null) {
+			return Collections.emptyList();
+		}
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final List<E> result = findAll(readDao, preparedQuery);
+			record(DaoOperation.FIND_ALL, start, result.size(), null, preparedQuery);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.FIND_ALL, start, 0, t, preparedQuery);
+			LOGGER.info("findAll", t);
+			return Collections.emptyList();
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	protected long deleteAll(final PreparedDelete<E> preparedDelete) {
+		if (preparedDelete == null) {
+			return 0;
+		}
+		final long start = start();
+		try {
+			final long result = deleteAll(dao, preparedDelete);
+			record(DaoOperation.DELETE_ALL, start, result, null, preparedDelete);
+			return result;
 		} catch (final Throwable t) {
+			record(DaoOperation.DELETE_ALL, start, 0, t, preparedDelete);
+			LOGGER.info("deleteAll", t);
+			return 0;
+		} finally {
+			invalidateAll();
+		}
+	}
+
+	protected long count(final PreparedQuery<E> preparedQuery) {
+		if (preparedQuery == null) {
+			return 0;
+		}
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final long result = count(readDao, preparedQuery);
+			record(DaoOperation.COUNT, start, 1, null, preparedQuery);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.COUNT, start, 0, t, preparedQuery);
 			LOGGER.info("count", t);
 			return 0;
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	protected double sum(final String columnName) {
+		return sum(columnName, null, null);
+	}
+
+	protected double sum(final String columnName, final Expression<Boolean> expression) {
+		return sum(columnName, expression, null);
+	}
+
+	protected double sum(final String columnName, final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		final double[] result = aggregate("sum", expression, whereVisitor, columnName, "SUM");
+		return (result != null) && !Double.isNaN(result[0]) ? result[0] : 0;
+	}
+
+	protected double avg(final String columnName) {
+		return avg(columnName, null, null);
+	}
+
+	protected double avg(final String columnName, final Expression<Boolean> expression) {
+		return avg(columnName, expression, null);
+	}
+
+	protected double avg(final String columnName, final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		final double[] result = aggregate("avg", expression, whereVisitor, columnName, "SUM", "COUNT");
+		return (result != null) && (result[1] > 0) ? result[0] / result[1] : Double.NaN;
+	}
+
+	protected double min(final String columnName) {
+		return min(columnName, null, null);
+	}
+
+	protected double min(final String columnName, final Expression<Boolean> expression) {
+		return min(columnName, expression, null);
+	}
+
+	protected double min(final String columnName, final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		final double[] result = aggregate("min", expression, whereVisitor, columnName, "MIN");
+		return result != null ? result[0] : Double.NaN;
+	}
+
+	protected double max(final String columnName) {
+		return max(columnName, null, null);
+	}
+
+	protected double max(final String columnName, final Expression<Boolean> expression) {
+		return max(columnName, expression, null);
+	}
+
+	protected double max(final String columnName, final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		final double[] result = aggregate("max", expression, whereVisitor, columnName, "MAX");
+		return result != null ? result[0] : Double.NaN;
+	}
+
+	protected <K> Map<K, Long> groupByCount(final String columnName) {
+		return groupByCount(columnName, null, null);
+	}
+
+	protected <K> Map<K, Long> groupByCount(final String columnName, final Expression<Boolean> expression) {
+		return groupByCount(columnName, expression, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <K> Map<K, Long> groupByCount(final String columnName, final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		final QueryBuilder<E, Long> queryBuilder = buildQuery(expression, whereVisitor != null ? whereVisitor : getWhereVisitor());
+		if (queryBuilder == null) {
+			return Collections.emptyMap();
+		}
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final FieldType fieldType = getTableInfo().getFieldTypeByColumnName(columnName);
+			queryBuilder.selectRaw(escape(columnName), "COUNT(*)").groupBy(fieldType.getColumnName());
+			final Map<String, Integer> columnPositions = new HashMap<String, Integer>();
+			columnPositions.put(fieldType.getColumnName(), 0);
+			final Map<K, Long> result = new LinkedHashMap<K, Long>();
+			for (final Object[] row : project(readDao, queryBuilder.prepareStatementInfo(), new RowMapper<Object[]>() {
+				@Override
+				public Object[] mapRow(final DatabaseResults results) throws SQLException {
+					return new Object[] { fieldType.resultToJava(results, columnPositions), results.getLong(1) };
+				}
+			})) {
+				result.put((K) row[0], (Long) row[1]);
+			}
+			record(DaoOperation.AGGREGATE, start, result.size(), null, queryBuilder);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.AGGREGATE, start, 0, t, queryBuilder);
+			LOGGER.info("groupByCount", t);
+			return Collections.emptyMap();
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	protected List<Object[]> project(final QueryBuilder<E, Long> queryBuilder, final String... columnNames) {
+		return project(queryBuilder, columnNames, new ArrayRowMapper(toFieldTypes(columnNames)));
+	}
+
+	protected <R> List<R> project(final QueryBuilder<E, Long> queryBuilder, final Class<R> clazz, final String... columnNames) {
+		final FieldType[] fieldTypes = toFieldTypes(columnNames);
+		return project(queryBuilder, columnNames, new ConstructorRowMapper<R>(findConstructor(clazz, fieldTypes), fieldTypes));
+	}
+
+	protected <R> List<R> project(final QueryBuilder<E, Long> queryBuilder, final RawRowMapper<R> rawRowMapper, final String... columnNames) {
+		return project(queryBuilder, columnNames, new StringRowMapper<R>(rawRowMapper));
+	}
+
+	protected List<Long> findIds(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
+		return project(dao, buildIdQuery(queryBuilder).prepareStatementInfo(), new RowMapper<Long>() {
+			@Override
+			public Long mapRow(final DatabaseResults results) throws SQLException {
+				return results.getLong(0);
+			}
+		});
+	}
+
+	protected QueryBuilder<E, Long> buildIdQuery(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
+		final QueryBuilder<E, Long> idQueryBuilder = dao.queryBuilder();
+		idQueryBuilder.selectColumns(getTableInfo().getIdField().getColumnName());
+		final Where<E, Long> where = getWhere(queryBuilder);
+		if (where != null) {
+			idQueryBuilder.setWhere(where);
+		}
+		return idQueryBuilder;
+	}
+
+	private <R> List<R> project(final QueryBuilder<E, Long> queryBuilder, final String[] columnNames, final RowMapper<R> rowMapper) {
+		if (queryBuilder == null) {
+			return Collections.emptyList();
+		}
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			if (columnNames.length > 0) {
+				queryBuilder.selectColumns(columnNames);
+			}
+			final List<R> result = project(readDao, queryBuilder.prepareStatementInfo(), rowMapper);
+			record(DaoOperation.PROJECT, start, result.size(), null, queryBuilder);
+			return result;
+		} catch (final Throwable t) {
+			record(DaoOperation.PROJECT, start, 0, t, queryBuilder);
+			LOGGER.info("project", t);
+			return Collections.emptyList();
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected PreparedQuery<E> prepareQuery(final Expression<Boolean> expression) {
+		return prepareQuery(expression, (WhereVisitor) null);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected PreparedQuery<E> prepareQuery(final Expression<Boolean> expression, final Order<E>... orders) {
+		return prepareQuery(expression, null, orders);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected PreparedQuery<E> prepareQuery(final Expression<Boolean> expression, final WhereVisitor whereVisitor, final Order<E>... orders) {
+		final WhereVisitor visitor = whereVisitor != null ? whereVisitor : getWhereVisitor();
+		final RawWhere rawWhere = toRawWhere(toWhere(expression, visitor), visitor, getTableInfo());
+		final StatementKey key = toStatementKey(StatementType.SELECT, rawWhere, visitor, orders);
+		final PreparedStmt<E> cached = getCachedStatement(key);
+		if (cached != null) {
+			return new BoundStatement<E>(cached, rawWhere);
+		}
+		final Date now = getNow();
+		try {
+			final QueryBuilder<E, Long> queryBuilder = dao.queryBuilder();
+			if (rawWhere != null) {
+				rawWhere.where(queryBuilder);
+			}
+			return putCachedStatement(key, orderByIfNotNull(queryBuilder, now, orders).prepare(), rawWhere);
+		} catch (final SQLException e) {
+			LOGGER.info("prepareQuery", e);
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected Page<E> findPage(final PageCursor cursor, final int limit, final ColumnOrder<E>... orders) {
+		return findPage(null, null, cursor, limit, orders);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected Page<E> findPage(final Expression<Boolean> expression, final PageCursor cursor, final int limit, final ColumnOrder<E>... orders) {
+		return findPage(expression, null, cursor, limit, orders);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected Page<E> findPage(final Expression<Boolean> expression, final WhereVisitor whereVisitor, final PageCursor cursor, final int limit, final ColumnOrder<E>... orders) {
+		if (limit <= 0) {
+			return new Page<E>(null, null);
+		}
+		final TableInfo<E, Long> tableInfo = getTableInfo();
+		final List<ColumnOrder<E>> keys = new ArrayList<ColumnOrder<E>>();
+		if (orders != null) {
+			keys.addAll(Arrays.asList(orders));
+		}
+		final String idColumnName = tableInfo.getIdField().getColumnName();
+		if (keys.isEmpty() || !idColumnName.equals(keys.get(keys.size() - 1).getColumnName())) {
+			keys.add(new ColumnOrder<E>(idColumnName, keys.isEmpty() || keys.get(keys.size() - 1).isAscending()));
+		}
+		final Date now = getNow();
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final WhereVisitor visitor = whereVisitor != null ? whereVisitor : getWhereVisitor();
+			final QueryBuilder<E, Long> queryBuilder = dao.queryBuilder();
+			final RawWhere rawWhere = toPageWhere(dao.getConnectionSource().getDatabaseType(), toWhere(expression, visitor), visitor, tableInfo, keys, cursor);
+			if (rawWhere != null) {
+				rawWhere.where(queryBuilder);
+			}
+			for (final ColumnOrder<E> key : keys) {
+				key.orderBy(queryBuilder, now);
+			}
+			final List<E> entities = findAll(readDao, queryBuilder.limit(limit + 1L));
+			if (entities.size() <= limit) {
+				record(DaoOperation.FIND_PAGE, start, entities.size(), null, queryBuilder);
+				return new Page<E>(entities, null);
+			}
+			final List<E> result = new ArrayList<E>(entities.subList(0, limit));
+			final E last = result.get(limit - 1);
+			final Object[] values = new Object[keys.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = tableInfo.getFieldTypeByColumnName(keys.get(i).getColumnName()).extractJavaFieldValue(last);
+			}
+			record(DaoOperation.FIND_PAGE, start, result.size(), null, queryBuilder);
+			return new Page<E>(result, new PageCursor(values));
+		} catch (final Throwable t) {
+			record(DaoOperation.FIND_PAGE, start, 0, t);
+			LOGGER.info("findPage", t);
+			return new Page<E>(null, null);
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	protected PreparedQuery<E> prepareCount(final Expression<Boolean> expression) {
+		return prepareCount(expression, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected PreparedQuery<E> prepareCount(final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		final WhereVisitor visitor = whereVisitor != null ? whereVisitor : getWhereVisitor();
+		final RawWhere rawWhere = toRawWhere(toWhere(expression, visitor), visitor, getTableInfo());
+		final StatementKey key = toStatementKey(StatementType.SELECT_LONG, rawWhere, visitor, null);
+		final PreparedStmt<E> cached = getCachedStatement(key);
+		if (cached != null) {
+			return new BoundStatement<E>(cached, rawWhere);
+		}
+		try {
+			final QueryBuilder<E, Long> queryBuilder = dao.queryBuilder().setCountOf(true);
+			if (rawWhere != null) {
+				rawWhere.where(queryBuilder);
+			}
+			return putCachedStatement(key, queryBuilder.prepare(), rawWhere);
+		} catch (final SQLException e) {
+			LOGGER.info("prepareCount", e);
+			return null;
+		}
+	}
+
+	protected PreparedDelete<E> prepareDelete(final Expression<Boolean> expression) {
+		return prepareDelete(expression, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected PreparedDelete<E> prepareDelete(final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		final WhereVisitor visitor = whereVisitor != null ? whereVisitor : getWhereVisitor();
+		final RawWhere rawWhere = toRawWhere(toWhere(expression, visitor), visitor, getTableInfo());
+		final StatementKey key = toStatementKey(StatementType.DELETE, rawWhere, visitor, null);
+		final PreparedStmt<E> cached = getCachedStatement(key);
+		if (cached != null) {
+			return new BoundStatement<E>(cached, rawWhere);
+		}
+		try {
+			final DeleteBuilder<E, Long> deleteBuilder = dao.deleteBuilder();
+			if (rawWhere != null) {
+				rawWhere.where(deleteBuilder);
+			}
+			return putCachedStatement(key, deleteBuilder.prepare(), rawWhere);
+		} catch (final SQLException e) {
+			LOGGER.info("prepareDelete", e);
+			return null;
 		}
 	}
 
 	protected QueryBuilder<E, Long> buildQuery() {
-		return dao.queryBuilder();
+		final QueryBuilder<E, Long> queryBuilder = dao.queryBuilder();
+		if (isTableTracking()) {
+			ResultCache.register(queryBuilder, tableName);
+		}
+		return queryBuilder;
 	}
 
 	protected QueryBuilder<E, Long> buildQuery(final Order<E> order) {
@@ -248,7 +1062,7 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		return buildQuery(new ThrowableQueryBuilder<E>() {
 			@Override
 			public QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
-				return AbstractDao.buildQuery(queryBuilder, null, null, now, order);
+				return AbstractDao.buildQuery(queryBuilder, null, null, getTableInfo(), now, order);
 			}
 		});
 	}
@@ -259,7 +1073,7 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		return buildQuery(new ThrowableQueryBuilder<E>() {
 			@Override
 			public QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
-				return AbstractDao.buildQuery(queryBuilder, null, null, now, orders);
+				return AbstractDao.buildQuery(queryBuilder, null, null, getTableInfo(), now, orders);
 			}
 		});
 	}
@@ -268,7 +1082,7 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		return buildQuery(new ThrowableQueryBuilder<E>() {
 			@Override
 			public QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
-				return AbstractDao.buildStatement(queryBuilder, expression, null);
+				return AbstractDao.buildStatement(queryBuilder, expression, getWhereVisitor(), getTableInfo());
 			}
 		});
 	}
@@ -278,7 +1092,7 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		return buildQuery(new ThrowableQueryBuilder<E>() {
 			@Override
 			public QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
-				return AbstractDao.buildQuery(queryBuilder, expression, null, now, order);
+				return AbstractDao.buildQuery(queryBuilder, expression, getWhereVisitor(), getTableInfo(), now, order);
 			}
 		});
 	}
@@ -289,7 +1103,7 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		return buildQuery(new ThrowableQueryBuilder<E>() {
 			@Override
 			public QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
-				return AbstractDao.buildQuery(queryBuilder, expression, null, now, orders);
+				return AbstractDao.buildQuery(queryBuilder, expression, getWhereVisitor(), getTableInfo(), now, orders);
 			}
 		});
 	}
@@ -298,7 +1112,7 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		return buildQuery(new ThrowableQueryBuilder<E>() {
 			@Override
 			public QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
-				return AbstractDao.buildStatement(queryBuilder, expression, whereVisitor);
+				return AbstractDao.buildStatement(queryBuilder, expression, whereVisitor, getTableInfo());
 			}
 		});
 	}
@@ -308,7 +1122,7 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		return buildQuery(new ThrowableQueryBuilder<E>() {
 			@Override
 			public QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
-				return AbstractDao.buildQuery(queryBuilder, expression, whereVisitor, now, order);
+				return AbstractDao.buildQuery(queryBuilder, expression, whereVisitor, getTableInfo(), now, order);
 			}
 		});
 	}
@@ -319,13 +1133,16 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		return buildQuery(new ThrowableQueryBuilder<E>() {
 			@Override
 			public QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder) throws SQLException {
-				return AbstractDao.buildQuery(queryBuilder, expression, whereVisitor, now, orders);
+				return AbstractDao.buildQuery(queryBuilder, expression, whereVisitor, getTableInfo(), now, orders);
 			}
 		});
 	}
 
 	protected QueryBuilder<E, Long> buildQuery(final ThrowableQueryBuilder<E> throwableQueryBuilder) {
 		final QueryBuilder<E, Long> queryBuilder = dao.queryBuilder();
+		if (isTableTracking()) {
+			ResultCache.register(queryBuilder, tableName);
+		}
 		try {
 			return throwableQueryBuilder.buildQuery(queryBuilder);
 		} catch (final SQLException e) {
@@ -342,81 +1159,590 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		return buildUpdate(new ThrowableUpdateBuilder<E>() {
 			@Override
 			public UpdateBuilder<E, Long> buildUpdate(final UpdateBuilder<E, Long> updateBuilder) throws SQLException {
-				return AbstractDao.buildStatement(updateBuilder, expression, null);
+				return AbstractDao.buildStatement(updateBuilder, expression, getWhereVisitor(), getTableInfo());
+			}
+		});
+	}
+
+	protected UpdateBuilder<E, Long> buildUpdate(final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		return buildUpdate(new ThrowableUpdateBuilder<E>() {
+			@Override
+			public UpdateBuilder<E, Long> buildUpdate(final UpdateBuilder<E, Long> updateBuilder) throws SQLException {
+				return AbstractDao.buildStatement(updateBuilder, expression, whereVisitor, getTableInfo());
+			}
+		});
+	}
+
+	protected UpdateBuilder<E, Long> buildUpdate(final ThrowableUpdateBuilder<E> throwableUpdateBuilder) {
+		final UpdateBuilder<E, Long> updateBuilder = dao.updateBuilder();
+		try {
+			return throwableUpdateBuilder.buildUpdate(updateBuilder);
+		} catch (final SQLException e) {
+			LOGGER.info("buildUpdate", e);
+			return null;
+		}
+	}
+
+	protected DeleteBuilder<E, Long> buildDelete() {
+		return dao.deleteBuilder();
+	}
+
+	protected DeleteBuilder<E, Long> buildDelete(final Expression<Boolean> expression) {
+		return buildDelete(new ThrowableDeleteBuilder<E>() {
+			@Override
+			public DeleteBuilder<E, Long> buildDelete(final DeleteBuilder<E, Long> deleteBuilder) throws SQLException {
+				return AbstractDao.buildStatement(deleteBuilder, expression, getWhereVisitor(), getTableInfo());
+			}
+		});
+	}
+
+	protected DeleteBuilder<E, Long> buildDelete(final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		return buildDelete(new ThrowableDeleteBuilder<E>() {
+			@Override
+			public DeleteBuilder<E, Long> buildDelete(final DeleteBuilder<E, Long> deleteBuilder) throws SQLException {
+				return AbstractDao.buildStatement(deleteBuilder, expression, whereVisitor, getTableInfo());
+			}
+		});
+	}
+
+	protected DeleteBuilder<E, Long> buildDelete(final ThrowableDeleteBuilder<E> throwableDeleteBuilder) {
+		final DeleteBuilder<E, Long> deleteBuilder = dao.deleteBuilder();
+		try {
+			return throwableDeleteBuilder.buildDelete(deleteBuilder);
+		} catch (final SQLException e) {
+			LOGGER.info("buildDelete", e);
+			return null;
+		}
+	}
+
+	protected TableInfo<E, Long> getTableInfo() {
+		return dao instanceof BaseDaoImpl ? ((BaseDaoImpl<E, Long>) dao).getTableInfo() : null;
+	}
+
+	protected Date getNow() {
+		return database.getNow();
+	}
+
+	protected Database getDatabase() {
+		return database;
+	}
+
+	protected Dao<E, Long> getDao() {
+		return dao;
+	}
+
+	protected int getMaxParameters() {
+		return DEFAULT_MAX_PARAMETERS;
+	}
+
+	protected WhereVisitor getWhereVisitor() {
+		return WHERE_VISITOR;
+	}
+
+	protected boolean isNativeUpsert() {
+		return false;
+	}
+
+	protected int getBatchSize() {
+		return DEFAULT_BATCH_SIZE;
+	}
+
+	protected int getEntityCacheSize() {
+		return 0;
+	}
+
+	protected long getEntityCacheTtl() {
+		return 0;
+	}
+
+	protected EntityCache<E> getEntityCache() {
+		return hooks().entityCache;
+	}
+
+	protected DaoListener getDaoListener() {
+		return null;
+	}
+
+	protected SlowQueryLog getSlowQueryLog() {
+		return null;
+	}
+
+	protected ReplicaRouter.Strategy getReplicaStrategy() {
+		return ReplicaRouter.Strategy.ROUND_ROBIN;
+	}
+
+	protected long getReadYourWritesWindow() {
+		return DEFAULT_READ_YOUR_WRITES_WINDOW;
+	}
+
+	protected ReplicaRouter<E> getReplicaRouter() {
+		return hooks().replicaRouter;
+	}
+
+	protected boolean isSingleFlight() {
+		return false;
+	}
+
+	protected SingleFlight<Object, Object> getSingleFlight() {
+		return hooks().singleFlight;
+	}
+
+	protected int getWriteBehindSize() {
+		return 0;
+	}
+
+	protected int getWriteBehindCapacity() {
+		return getWriteBehindSize() * 4;
+	}
+
+	protected long getWriteBehindInterval() {
+		return DEFAULT_WRITE_BEHIND_INTERVAL;
+	}
+
+	protected int getWriteBehindRetries() {
+		return DEFAULT_WRITE_BEHIND_RETRIES;
+	}
+
+	protected Executor getWriteBehindExecutor() {
+		return null;
+	}
+
+	protected WriteBehindBuffer<E> getWriteBehindBuffer() {
+		return hooks().writeBehindBuffer;
+	}
+
+	protected int getResultCacheSize() {
+		return 0;
+	}
+
+	protected ResultCache getResultCache() {
+		return hooks().resultCache;
+	}
+
+	protected int getStatementCacheSize() {
+		return DEFAULT_STATEMENT_CACHE_SIZE;
+	}
+
+	protected LruCache<Object, PreparedStmt<E>> getStatementCache() {
+		return hooks().statementCache;
+	}
+
+	protected void warmUp() throws SQLException {
+		prepareQuery(null);
+		prepareCount(null);
+		dao.queryForId(0L);
+	}
+
+	private long[] writeAll(final DaoOperation operation, final String name, final Collection<E> entities, final EntityWriter<E> writer) {
+		if (entities == null) {
+			return new long[0];
+		}
+		final List<E> list = new ArrayList<E>(entities.size());
+		for (final E entity : entities) {
+			if (entity != null) {
+				list.add(entity);
+			}
+		}
+		final int batchSize = Math.max(getBatchSize(), 1);
+		final long[] result = new long[(list.size() + batchSize - 1) / batchSize];
+		final Date now = getNow();
+		for (int i = 0; i < result.length; i++) {
+			final List<E> chunk = list.subList(i * batchSize, Math.min((i + 1) * batchSize, list.size()));
+			final long start = start();
+			try {
+				result[i] = inTransaction(new Callable<Long>() {
+					@Override
+					public Long call() throws SQLException {
+						return writer.write(dao, chunk, now);
+					}
+				});
+				record(operation, start, result[i], null);
+			} catch (final Throwable t) {
+				record(operation, start, 0, t);
+				LOGGER.info(name, t);
+				break;
+			} finally {
+				for (final E entity : chunk) {
+					invalidate(entity);
+				}
+			}
+		}
+		return result;
+	}
+
+	private void invalidate(final E entity) {
+		final EntityCache<E> entityCache = hooks().entityCache;
+		invalidateTable(tableName);
+		if (entityCache == null) {
+			return;
+		}
+		addDirtyEntityCache(entityCache);
+		try {
+			final Long id = dao.extractId(entity);
+			if (id != null) {
+				entityCache.invalidate(id);
+			}
+		} catch (final SQLException e) {
+			entityCache.invalidateAll();
+		}
+	}
+
+	protected void invalidateAll() {
+		final EntityCache<E> entityCache = hooks().entityCache;
+		invalidateTable(tableName);
+		if (entityCache != null) {
+			addDirtyEntityCache(entityCache);
+			entityCache.invalidateAll();
+		}
+	}
+
+	private long start() {
+		final Hooks<E> hooks = hooks();
+		return (hooks.listener != null) || (hooks.slowQueryLog != null) ? System.nanoTime() : 0;
+	}
+
+	private void record(final DaoOperation operation, final long start, final long rows, final Throwable error) {
+		record(operation, start, rows, error, null);
+	}
+
+	private void record(final DaoOperation operation, final long start, final long rows, final Throwable error, final Object statement) {
+		final Hooks<E> hooks = hooks();
+		if ((hooks.listener == null) && (hooks.slowQueryLog == null)) {
+			return;
+		}
+		final long elapsedNanos = System.nanoTime() - start;
+		try {
+			if (hooks.listener != null) {
+				hooks.listener.onOperation(clazz, operation, elapsedNanos, rows, error);
+			}
+			if ((hooks.slowQueryLog != null) && hooks.slowQueryLog.isSlow(elapsedNanos)) {
+				hooks.slowQueryLog.add(toSlowQuery(clazz, operation, statement, rows, elapsedNanos));
+			}
+		} catch (final Throwable t) {
+			LOGGER.warn("record", t);
+		}
+	}
+
+	private <T> T inNewTransaction(final Callable<T> callable) {
+		begin();
+		final T result;
+		try {
+			result = callable.call();
+		} catch (final Throwable t) {
+			LOGGER.warn("inTransaction", t);
+			rollbackQuietly();
+			throw toRuntimeException(t);
+		}
+		try {
+			commit();
+		} catch (final RuntimeException e) {
+			rollbackQuietly();
+			throw e;
+		}
+		return result;
+	}
+
+	private <T> T inNestedTransaction(final DatabaseConnection connection, final Callable<T> callable) {
+		final Savepoint savepoint;
+		try {
+			savepoint = connection.setSavePoint(SAVEPOINT_PREFIX + SAVEPOINT_SEQUENCE.incrementAndGet());
+		} catch (final SQLException e) {
+			LOGGER.warn("inTransaction", e);
+			throw new RuntimeException(e);
+		}
+		try {
+			return callable.call();
+		} catch (final Throwable t) {
+			LOGGER.warn("inTransaction", t);
+			if (savepoint != null) {
+				try {
+					connection.rollback(savepoint);
+				} catch (final SQLException e) {
+					LOGGER.warn("inTransaction", e);
+				}
+			}
+			invalidateAll();
+			throw toRuntimeException(t);
+		}
+	}
+
+	private void rollbackQuietly() {
+		try {
+			rollback();
+		} catch (final RuntimeException e) {
+			LOGGER.debug("rollbackQuietly", e);
+		}
+	}
+
+	private boolean isEntityCacheable(final EntityCache<E> entityCache, final Dao<E, Long> readDao) {
+		return (entityCache != null) && (readDao == dao);
+	}
+
+	private void putCachedEntity(final EntityCache<E> entityCache, final long version, final long id, final E entity) {
+		entityCache.put(id, entity);
+		if (ResultCache.getVersion(tableName) != version) {
+			entityCache.invalidate(id);
+		}
+	}
+
+	private void addDirtyEntityCache(final EntityCache<E> entityCache) {
+		final Transaction transaction = getTransaction();
+		if (transaction != null) {
+			transaction.dirtyEntityCaches.add(entityCache);
+		}
+	}
+
+	private boolean isResultCacheable() {
+		return (hooks().resultCache != null) && (getTransaction() == null);
+	}
+
+	protected void invalidateEntities(final String tableName, final Collection<Long> ids) {
+		final Transaction transaction = getTransaction();
+		if (transaction != null) {
+			transaction.dirtyEntityCaches.addAll(EntityCache.getCaches(tableName));
+		}
+		EntityCache.invalidate(tableName, ids);
+	}
+
+	protected void invalidateEntities(final String tableName) {
+		final List<EntityCache<?>> entityCaches = EntityCache.getCaches(tableName);
+		final Transaction transaction = getTransaction();
+		if (transaction != null) {
+			transaction.dirtyEntityCaches.addAll(entityCaches);
+		}
+		for (final EntityCache<?> entityCache : entityCaches) {
+			entityCache.invalidateAll();
+		}
+	}
+
+	protected void invalidateTable(final String tableName) {
+		ResultCache.incrementVersion(tableName);
+		final Transaction transaction = getTransaction();
+		if (transaction != null) {
+			transaction.dirtyTables.add(tableName);
+		} else {
+			ReplicaRouter.markWrite(tableName);
+		}
+	}
+
+	private double[] aggregate(final String name, final Expression<Boolean> expression, final WhereVisitor whereVisitor, final String columnName, final String... functions) {
+		final QueryBuilder<E, Long> queryBuilder = buildQuery(expression, whereVisitor != null ? whereVisitor : getWhereVisitor());
+		if (queryBuilder == null) {
+			return null;
+		}
+		final long start = start();
+		final Dao<E, Long> readDao = acquireReadDao();
+		try {
+			final String column = escape(columnName);
+			final String[] columns = new String[functions.length];
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = functions[i] + "(" + column + ")";
+			}
+			queryBuilder.selectRaw(columns);
+			final List<double[]> result = project(readDao, queryBuilder.prepareStatementInfo(), new RowMapper<double[]>() {
+				@Override
+				public double[] mapRow(final DatabaseResults results) throws SQLException {
+					final double[] values = new double[columns.length];
+					for (int i = 0; i < values.length; i++) {
+						values[i] = results.getDouble(i);
+						values[i] = !results.wasNull(i) ? values[i] : Double.NaN;
+					}
+					return values;
+				}
+			});
+			record(DaoOperation.AGGREGATE, start, result.size(), null, queryBuilder);
+			return !result.isEmpty() ? result.get(0) : null;
+		} catch (final Throwable t) {
+			record(DaoOperation.AGGREGATE, start, 0, t, queryBuilder);
+			LOGGER.info(name, t);
+			return null;
+		} finally {
+			releaseReadDao(readDao);
+		}
+	}
+
+	private String escape(final String columnName) {
+		final StringBuilder sb = new StringBuilder();
+		dao.getConnectionSource().getDatabaseType().appendEscapedEntityName(sb, getTableInfo().getFieldTypeByColumnName(columnName).getColumnName());
+		return sb.toString();
+	}
+
+	private FieldType[] toFieldTypes(final String[] columnNames) {
+		final TableInfo<E, Long> tableInfo = getTableInfo();
+		final FieldType[] fieldTypes = new FieldType[columnNames.length];
+		for (int i = 0; i < columnNames.length; i++) {
+			fieldTypes[i] = tableInfo.getFieldTypeByColumnName(columnNames[i]);
+		}
+		return fieldTypes;
+	}
+
+	private E coalesceFind(final Dao<E, Long> readDao, final long id) throws Exception {
+		if (!isCoalescing()) {
+			return find(readDao, id);
+		}
+		final boolean[] leader = new boolean[1];
+		final E result = coalesce(toFlightKey(Arrays.asList("find", id), readDao == dao, tableName), new Callable<E>() {
+			@Override
+			public E call() throws SQLException {
+				leader[0] = true;
+				return find(readDao, id);
+			}
+		});
+		return leader[0] ? result : copy(result);
+	}
+
+	private List<E> coalesceFindAll(final Dao<E, Long> readDao, final QueryBuilder<E, Long> queryBuilder, final Object key) throws Exception {
+		if (!isCoalescing()) {
+			return findAll(readDao, queryBuilder);
+		}
+		final boolean[] leader = new boolean[1];
+		final List<E> result = coalesce(toFlightKey(key != null ? key : ResultCache.toKey("findAll", queryBuilder.prepareStatementInfo()), readDao == dao, ResultCache.getTables(queryBuilder, tableName)), new Callable<List<E>>() {
+			@Override
+			public List<E> call() throws SQLException {
+				leader[0] = true;
+				return findAll(readDao, queryBuilder);
 			}
 		});
+		if (leader[0]) {
+			return new ArrayList<E>(result);
+		}
+		final List<E> copies = new ArrayList<E>(result.size());
+		for (final E entity : result) {
+			copies.add(copy(entity));
+		}
+		return copies;
+	}
+
+	private static Object toFlightKey(final Object key, final boolean primary, final String... tables) {
+		final long[] versions = ResultCache.getVersions(tables);
+		final List<Object> flightKey = new ArrayList<Object>(versions.length + 2);
+		flightKey.add(key);
+		flightKey.add(primary);
+		for (final long version : versions) {
+			flightKey.add(version);
+		}
+		return flightKey;
+	}
+
+	private E copy(final E entity) throws SQLException {
+		final TableInfo<E, Long> tableInfo = getTableInfo();
+		if ((entity == null) || (tableInfo == null)) {
+			return entity;
+		}
+		final E copy = tableInfo.createObject();
+		for (final FieldType fieldType : tableInfo.getFieldTypes()) {
+			fieldType.assignField(copy, fieldType.extractRawJavaFieldValue(entity), true, null);
+		}
+		return copy;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T coalesce(final Object key, final Callable<T> callable) throws Exception {
+		return (T) hooks().singleFlight.execute(key, callable);
+	}
+
+	private boolean isTableTracking() {
+		final Hooks<E> hooks = hooks();
+		return (hooks.resultCache != null) || (hooks.singleFlight != null);
+	}
+
+	private boolean isCoalescing() {
+		return (hooks().singleFlight != null) && (getTransaction() == null);
 	}
 
-	protected UpdateBuilder<E, Long> buildUpdate(final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
-		return buildUpdate(new ThrowableUpdateBuilder<E>() {
-			@Override
-			public UpdateBuilder<E, Long> buildUpdate(final UpdateBuilder<E, Long> updateBuilder) throws SQLException {
-				return AbstractDao.buildStatement(updateBuilder, expression, whereVisitor);
-			}
-		});
+	private Dao<E, Long> acquireReadDao() {
+		final ReplicaRouter<E> replicaRouter = hooks().replicaRouter;
+		return (replicaRouter != null) && (getTransaction() == null) ? replicaRouter.acquire(tableName) : dao;
 	}
 
-	protected UpdateBuilder<E, Long> buildUpdate(final ThrowableUpdateBuilder<E> throwableUpdateBuilder) {
-		final UpdateBuilder<E, Long> updateBuilder = dao.updateBuilder();
-		try {
-			return throwableUpdateBuilder.buildUpdate(updateBuilder);
-		} catch (final SQLException e) {
-			LOGGER.info("buildUpdate", e);
-			return null;
+	private void releaseReadDao(final Dao<E, Long> readDao) {
+		final ReplicaRouter<E> replicaRouter = hooks().replicaRouter;
+		if ((replicaRouter != null) && (readDao != dao)) {
+			replicaRouter.release(readDao);
 		}
 	}
 
-	protected DeleteBuilder<E, Long> buildDelete() {
-		return dao.deleteBuilder();
+	private Hooks<E> hooks() {
+		Hooks<E> result = hooks;
+		if (result == null) {
+			synchronized (hooksLock) {
+				result = hooks;
+				if (result == null) {
+					result = new Hooks<E>(this);
+					hooks = result;
+				}
+			}
+		}
+		return result;
 	}
 
-	protected DeleteBuilder<E, Long> buildDelete(final Expression<Boolean> expression) {
-		return buildDelete(new ThrowableDeleteBuilder<E>() {
-			@Override
-			public DeleteBuilder<E, Long> buildDelete(final DeleteBuilder<E, Long> deleteBuilder) throws SQLException {
-				return AbstractDao.buildStatement(deleteBuilder, expression, null);
-			}
-		});
+	private Transaction getTransaction() {
+		final Map<ConnectionSource, Transaction> transactions = TRANSACTIONS.get();
+		return transactions != null ? transactions.get(dao.getConnectionSource()) : null;
 	}
 
-	protected DeleteBuilder<E, Long> buildDelete(final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
-		return buildDelete(new ThrowableDeleteBuilder<E>() {
-			@Override
-			public DeleteBuilder<E, Long> buildDelete(final DeleteBuilder<E, Long> deleteBuilder) throws SQLException {
-				return AbstractDao.buildStatement(deleteBuilder, expression, whereVisitor);
-			}
-		});
+	private void putTransaction(final Transaction transaction) {
+		Map<ConnectionSource, Transaction> transactions = TRANSACTIONS.get();
+		if (transactions == null) {
+			transactions = new IdentityHashMap<ConnectionSource, Transaction>();
+			TRANSACTIONS.set(transactions);
+		}
+		transactions.put(dao.getConnectionSource(), transaction);
 	}
 
-	protected DeleteBuilder<E, Long> buildDelete(final ThrowableDeleteBuilder<E> throwableDeleteBuilder) {
-		final DeleteBuilder<E, Long> deleteBuilder = dao.deleteBuilder();
-		try {
-			return throwableDeleteBuilder.buildDelete(deleteBuilder);
-		} catch (final SQLException e) {
-			LOGGER.info("buildDelete", e);
-			return null;
+	private void removeTransaction() {
+		final Map<ConnectionSource, Transaction> transactions = TRANSACTIONS.get();
+		if (transactions == null) {
+			return;
+		}
+		transactions.remove(dao.getConnectionSource());
+		if (transactions.isEmpty()) {
+			TRANSACTIONS.remove();
 		}
 	}
 
-	protected TableInfo<E, Long> getTableInfo() {
-		return dao instanceof BaseDaoImpl ? ((BaseDaoImpl<E, Long>) dao).getTableInfo() : null;
+	private PreparedStmt<E> getCachedStatement(final StatementKey key) {
+		final LruCache<Object, PreparedStmt<E>> statementCache = hooks().statementCache;
+		return (statementCache != null) && (key != null) ? statementCache.get(key) : null;
 	}
 
-	protected Date getNow() {
-		return database.getNow();
+	private BoundStatement<E> putCachedStatement(final StatementKey key, final PreparedStmt<E> preparedStmt, final RawWhere rawWhere) {
+		final LruCache<Object, PreparedStmt<E>> statementCache = hooks().statementCache;
+		if ((statementCache != null) && (key != null)) {
+			statementCache.put(key, preparedStmt);
+		}
+		return new BoundStatement<E>(preparedStmt, rawWhere);
+	}
+
+	private static StatementKey toStatementKey(final StatementType type, final RawWhere rawWhere, final WhereVisitor whereVisitor, final Order<?>[] orders) {
+		if ((rawWhere != null) && !(whereVisitor instanceof ArgumentWhereVisitor)) {
+			return null;
+		}
+		if (orders != null) {
+			for (final Order<?> order : orders) {
+				if ((order != null) && (order.getClass() != ColumnOrder.class) && (order.getClass() != RawOrder.class)) {
+					return null;
+				}
+				final ArgumentHolder[] args = order instanceof RawOrder ? ((RawOrder<?>) order).getArgs() : null;
+				if ((args != null) && (args.length > 0)) {
+					return null;
+				}
+			}
+		}
+		return new StatementKey(type, rawWhere != null ? rawWhere.getRawSql() : null, orders);
 	}
 
-	private static <E extends Entity> QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder, final Expression<Boolean> expression, final WhereVisitor whereVisitor, final Date now, final Order<E> order) {
-		return orderByIfNotNull(buildStatement(queryBuilder, expression, whereVisitor), now, order);
+	private static <E extends Entity> QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder, final Expression<Boolean> expression, final WhereVisitor whereVisitor, final TableInfo<?, ?> tableInfo, final Date now, final Order<E> order) {
+		return orderByIfNotNull(buildStatement(queryBuilder, expression, whereVisitor, tableInfo), now, order);
 	}
 
 	@SafeVarargs
-	private static <E extends Entity> QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder, final Expression<Boolean> expression, final WhereVisitor whereVisitor, final Date now, final Order<E>... orders) {
-		return orderByIfNotNull(buildStatement(queryBuilder, expression, whereVisitor), now, orders);
+	private static <E extends Entity> QueryBuilder<E, Long> buildQuery(final QueryBuilder<E, Long> queryBuilder, final Expression<Boolean> expression, final WhereVisitor whereVisitor, final TableInfo<?, ?> tableInfo, final Date now, final Order<E>... orders) {
+		return orderByIfNotNull(buildStatement(queryBuilder, expression, whereVisitor, tableInfo), now, orders);
 	}
 
-	private static <T extends StatementBuilder<?, ?>> T buildStatement(final T statementBuilder, final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
-		return whereVisitor != null ? whereIfNotNull(statementBuilder, expression, whereVisitor) : whereIfNotNull(statementBuilder, expression);
+	private static <T extends StatementBuilder<?, ?>> T buildStatement(final T statementBuilder, final Expression<Boolean> expression, final WhereVisitor whereVisitor, final TableInfo<?, ?> tableInfo) {
+		return whereVisitor != null ? whereIfNotNull(statementBuilder, expression, whereVisitor, tableInfo) : whereIfNotNull(statementBuilder, expression);
 	}
 
 	@SafeVarargs
@@ -431,7 +1757,11 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 	}
 
 	protected static <E extends Entity> QueryBuilder<E, Long> joinIfNotNull(final QueryBuilder<E, Long> queryBuilder, final QueryBuilder<? extends Entity, Long> joinedQueryBuilder) throws SQLException {
-		return (queryBuilder != null) && (joinedQueryBuilder != null) ? queryBuilder.join(joinedQueryBuilder) : queryBuilder;
+		if ((queryBuilder == null) || (joinedQueryBuilder == null)) {
+			return queryBuilder;
+		}
+		ResultCache.join(queryBuilder, joinedQueryBuilder);
+		return queryBuilder.join(joinedQueryBuilder);
 	}
 
 	@SafeVarargs
@@ -446,7 +1776,11 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 	}
 
 	protected static <E extends Entity> QueryBuilder<E, Long> leftJoinIfNotNull(final QueryBuilder<E, Long> queryBuilder, final QueryBuilder<? extends Entity, Long> joinedQueryBuilder) throws SQLException {
-		return (queryBuilder != null) && (joinedQueryBuilder != null) ? queryBuilder.leftJoin(joinedQueryBuilder) : queryBuilder;
+		if ((queryBuilder == null) || (joinedQueryBuilder == null)) {
+			return queryBuilder;
+		}
+		ResultCache.join(queryBuilder, joinedQueryBuilder);
+		return queryBuilder.leftJoin(joinedQueryBuilder);
 	}
 
 	@SafeVarargs
@@ -469,32 +1803,156 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 	}
 
 	protected static <T extends StatementBuilder<?, ?>> T whereIfNotNull(final T statementBuilder, final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		return whereIfNotNull(statementBuilder, expression, whereVisitor, null);
+	}
+
+	protected static <T extends StatementBuilder<?, ?>> T whereIfNotNull(final T statementBuilder, final Expression<Boolean> expression, final WhereVisitor whereVisitor, final TableInfo<?, ?> tableInfo) {
 		if ((statementBuilder == null) || (expression == null) || (whereVisitor == null)) {
 			return statementBuilder;
 		}
-		statementBuilder.where().raw(expression.accept(whereVisitor));
+		return whereRawIfNotNull(statementBuilder, expression.accept(whereVisitor), whereVisitor, tableInfo);
+	}
+
+	private static <E extends Entity> RawWhere toPageWhere(final DatabaseType databaseType, final String where, final WhereVisitor whereVisitor, final TableInfo<?, ?> tableInfo, final List<ColumnOrder<E>> keys, final PageCursor cursor) {
+		final StringBuilder sb = new StringBuilder();
+		final List<ArgumentHolder> args = new ArrayList<ArgumentHolder>();
+		if (where != null) {
+			final RawWhere rawWhere = whereVisitor instanceof ArgumentWhereVisitor ? ((ArgumentWhereVisitor) whereVisitor).toRawWhere(where, tableInfo) : new RawWhere(where);
+			sb.append('(').append(rawWhere.getRawSql()).append(')');
+			args.addAll(Arrays.asList(rawWhere.getArgs()));
+		}
+		final Object[] values = cursor != null ? cursor.getValues() : null;
+		if ((values == null) || (values.length == 0)) {
+			return where != null ? new RawWhere(sb.toString(), args.toArray(new ArgumentHolder[args.size()])) : null;
+		}
+		if (values.length != keys.size()) {
+			throw new IllegalArgumentException();
+		}
+		sb.append(where != null ? " AND (" : "(");
+		for (int i = 0; i < keys.size(); i++) {
+			sb.append(i > 0 ? " OR (" : "(");
+			for (int j = 0; j <= i; j++) {
+				final ColumnOrder<E> key = keys.get(j);
+				sb.append(j > 0 ? " AND " : "");
+				databaseType.appendEscapedEntityName(sb, key.getColumnName());
+				sb.append(j < i ? " = ?" : key.isAscending() ? " > ?" : " < ?");
+				args.add(new SelectArg(key.getColumnName(), values[j]));
+			}
+			sb.append(')');
+		}
+		sb.append(')');
+		return new RawWhere(sb.toString(), args.toArray(new ArgumentHolder[args.size()]));
+	}
+
+	@SuppressWarnings("unchecked")
+	protected static <T, ID> Where<T, ID> getWhere(final StatementBuilder<T, ID> statementBuilder) throws SQLException {
+		if (WHERE == null) {
+			throw new SQLException("where is not accessible");
+		}
+		try {
+			return (Where<T, ID>) WHERE.get(statementBuilder);
+		} catch (final IllegalAccessException e) {
+			throw new SQLException(e);
+		}
+	}
+
+	private static Field getWhereField() {
+		try {
+			final Field field = StatementBuilder.class.getDeclaredField("where");
+			field.setAccessible(true);
+			return field;
+		} catch (final Throwable t) {
+			LOGGER.info("getWhereField", t);
+			return null;
+		}
+	}
+
+	private static RuntimeException toRuntimeException(final Throwable t) {
+		if (t instanceof Error) {
+			throw (Error) t;
+		}
+		return t instanceof RuntimeException ? (RuntimeException) t : new RuntimeException(t);
+	}
+
+	private static String describe(final Dao<?, ?> dao) {
+		final Class<?> clazz = dao.getDataClass();
+		final String cached = DESCRIPTORS.get(clazz);
+		if (cached != null) {
+			return cached;
+		}
+		final String tableName = dao instanceof BaseDaoImpl ? ((BaseDaoImpl<?, ?>) dao).getTableInfo().getTableName() : null;
+		final String descriptor = clazz.getSimpleName() + "[" + tableName + "]";
+		DESCRIPTORS.putIfAbsent(clazz, descriptor);
+		return descriptor;
+	}
+
+	private static SlowQuery toSlowQuery(final Class<?> clazz, final DaoOperation operation, final Object statement, final long rows, final long elapsedNanos) {
+		String sql = null;
+		Object[] args = null;
+		try {
+			if (statement instanceof StatementBuilder) {
+				final StatementInfo statementInfo = ((StatementBuilder<?, ?>) statement).prepareStatementInfo();
+				final List<ArgumentHolder> argList = statementInfo.getArgList();
+				sql = statementInfo.getStatement();
+				args = new Object[argList.size()];
+				for (int i = 0; i < args.length; i++) {
+					args[i] = argList.get(i).getSqlArgValue();
+				}
+			} else if (statement instanceof PreparedStmt) {
+				sql = ((PreparedStmt<?>) statement).getStatement();
+			} else if (statement != null) {
+				args = new Object[] { statement };
+			}
+		} catch (final SQLException e) {
+			LOGGER.debug("toSlowQuery", e);
+		}
+		return new SlowQuery(System.currentTimeMillis(), clazz, operation, sql, args, rows, elapsedNanos);
+	}
+
+	private static String toWhere(final Expression<Boolean> expression, final WhereVisitor whereVisitor) {
+		return expression != null ? expression.accept(whereVisitor) : null;
+	}
+
+	private static <T extends StatementBuilder<?, ?>> T whereRawIfNotNull(final T statementBuilder, final String where, final WhereVisitor whereVisitor, final TableInfo<?, ?> tableInfo) {
+		if (where == null) {
+			return statementBuilder;
+		}
+		if (whereVisitor instanceof ArgumentWhereVisitor) {
+			return ((ArgumentWhereVisitor) whereVisitor).toRawWhere(where, tableInfo).where(statementBuilder);
+		}
+		statementBuilder.where().raw(where);
 		return statementBuilder;
 	}
 
+	private static RawWhere toRawWhere(final String where, final WhereVisitor whereVisitor, final TableInfo<?, ?> tableInfo) {
+		if (where == null) {
+			return null;
+		}
+		return whereVisitor instanceof ArgumentWhereVisitor ? ((ArgumentWhereVisitor) whereVisitor).toRawWhere(where, tableInfo) : new RawWhere(where);
+	}
+
 	private static <E extends Entity> E find(final Dao<E, Long> dao, final long id) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("find: " + ReflectionToStringBuilder.toString(dao) + ", " + id);
+			LOGGER.debug("find: {}, {}", describe(dao), id);
 		}
 		final E result = dao.queryForId(id);
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("find: " + result);
+			LOGGER.debug("find: {}", result);
 		}
 		return result;
 	}
 
 	private static <E extends Entity> E find(final Dao<E, ?> dao, final QueryBuilder<E, ?> queryBuilder) throws SQLException {
-		final PreparedQuery<E> preparedQuery = queryBuilder.prepare();
+		return find(dao, queryBuilder.prepare());
+	}
+
+	private static <E extends Entity> E find(final Dao<E, ?> dao, final PreparedQuery<E> preparedQuery) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("find: " + ReflectionToStringBuilder.toString(dao) + ", " + preparedQuery);
+			LOGGER.debug("find: {}, {}", describe(dao), preparedQuery);
 		}
 		final E result = dao.queryForFirst(preparedQuery);
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("find: " + result);
+			LOGGER.debug("find: {}", result);
 		}
 		return result;
 	}
@@ -502,69 +1960,199 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 	private static <E extends Entity> List<E> findAll(final Dao<E, ?> dao) throws SQLException {
 		final List<E> result = dao.queryForAll();
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("findAll: " + ReflectionToStringBuilder.toString(dao));
+			LOGGER.debug("findAll: {}", describe(dao));
 		}
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("findAll: " + result);
+			LOGGER.debug("findAll: {}", result);
 		}
 		return result;
 	}
 
+	private static <E extends Entity> List<E> findAll(final Dao<E, ?> dao, final String idColumnName, final List<Long> ids) throws SQLException {
+		final QueryBuilder<E, ?> queryBuilder = dao.queryBuilder();
+		queryBuilder.where().in(idColumnName, ids);
+		return findAll(dao, queryBuilder);
+	}
+
 	private static <E extends Entity> List<E> findAll(final Dao<E, ?> dao, final QueryBuilder<E, ?> queryBuilder) throws SQLException {
-		final PreparedQuery<E> preparedQuery = queryBuilder.prepare();
+		return findAll(dao, queryBuilder.prepare());
+	}
+
+	private static <E extends Entity> List<E> findAll(final Dao<E, ?> dao, final PreparedQuery<E> preparedQuery) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("findAll: " + ReflectionToStringBuilder.toString(dao) + ", " + preparedQuery);
+			LOGGER.debug("findAll: {}, {}", describe(dao), preparedQuery);
 		}
 		final List<E> result = dao.query(preparedQuery);
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("findAll: " + result);
+			LOGGER.debug("findAll: {}", result);
+		}
+		return result;
+	}
+
+	private static <E extends Entity> CloseableIterator<E> iterate(final Dao<E, ?> dao, final PreparedQuery<E> preparedQuery) throws SQLException {
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("iterate: {}, {}", describe(dao), preparedQuery);
+		}
+		return dao.iterator(preparedQuery);
+	}
+
+	private static <E extends Entity> long forEach(final Dao<E, ?> dao, final PreparedQuery<E> preparedQuery, final EntityVisitor<E> visitor) throws SQLException {
+		final CloseableIterator<E> iterator = iterate(dao, preparedQuery);
+		long result = 0;
+		try {
+			while (iterator.hasNext()) {
+				result++;
+				if (!visitor.visit(iterator.next())) {
+					break;
+				}
+			}
+		} finally {
+			iterator.closeQuietly();
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("forEach: {}", result);
 		}
 		return result;
 	}
 
+	private static <R> List<R> project(final Dao<?, ?> dao, final StatementInfo statementInfo, final RowMapper<R> rowMapper) throws SQLException {
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("project: {}, {}", describe(dao), statementInfo.getStatement());
+		}
+		final ConnectionSource connectionSource = dao.getConnectionSource();
+		final DatabaseConnection connection = connectionSource.getReadOnlyConnection();
+		try {
+			final CompiledStatement compiledStatement = connection.compileStatement(statementInfo.getStatement(), StatementType.SELECT, NO_FIELD_TYPES, DatabaseConnection.DEFAULT_RESULT_FLAGS);
+			try {
+				final List<ArgumentHolder> argList = statementInfo.getArgList();
+				for (int i = 0; i < argList.size(); i++) {
+					compiledStatement.setObject(i, argList.get(i).getSqlArgValue(), argList.get(i).getSqlType());
+				}
+				final DatabaseResults results = compiledStatement.runQuery(null);
+				try {
+					final List<R> result = new ArrayList<R>();
+					while (results.next()) {
+						result.add(rowMapper.mapRow(results));
+					}
+					if (LOGGER.isDebugEnabled()) {
+						LOGGER.debug("project: {}", result.size());
+					}
+					return result;
+				} finally {
+					results.closeQuietly();
+				}
+			} finally {
+				compiledStatement.closeQuietly();
+			}
+		} finally {
+			connectionSource.releaseConnection(connection);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <R> Constructor<R> findConstructor(final Class<R> clazz, final FieldType[] fieldTypes) {
+		for (final Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+			final Class<?>[] parameterTypes = constructor.getParameterTypes();
+			if (parameterTypes.length != fieldTypes.length) {
+				continue;
+			}
+			boolean assignable = true;
+			for (int i = 0; assignable && (i < parameterTypes.length); i++) {
+				assignable = toWrapperType(parameterTypes[i]).isAssignableFrom(toWrapperType(fieldTypes[i].getType()));
+			}
+			if (assignable) {
+				constructor.setAccessible(true);
+				return (Constructor<R>) constructor;
+			}
+		}
+		throw new IllegalArgumentException(clazz.getName());
+	}
+
+	private static Class<?> toWrapperType(final Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		if (type == boolean.class) {
+			return Boolean.class;
+		}
+		if (type == char.class) {
+			return Character.class;
+		}
+		if (type == byte.class) {
+			return Byte.class;
+		}
+		if (type == short.class) {
+			return Short.class;
+		}
+		if (type == int.class) {
+			return Integer.class;
+		}
+		if (type == long.class) {
+			return Long.class;
+		}
+		if (type == float.class) {
+			return Float.class;
+		}
+		return type == double.class ? Double.class : type;
+	}
+
 	private static <E extends Entity> boolean insert(final Dao<E, ?> dao, final E entity, final Date now) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("insert: " + ReflectionToStringBuilder.toString(dao) + ", " + entity);
+			LOGGER.debug("insert: {}, {}", describe(dao), entity);
 		}
 		entity.setCreatedAt(now);
 		final boolean result = dao.create(entity) == 1;
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("insert: " + result + ", " + entity);
+			LOGGER.debug("insert: {}, {}", result, entity);
 		}
 		return result;
 	}
 
-	private static <E extends Entity> boolean insertOrUpdate(final Dao<E, ?> dao, final E entity, final Date now) throws SQLException {
+	private static <E extends Entity> boolean insertOrUpdate(final Dao<E, ?> dao, final NativeUpsert<E> nativeUpsert, final E entity, final Date now) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("insertOrUpdate: " + ReflectionToStringBuilder.toString(dao) + ", " + entity);
+			LOGGER.debug("insertOrUpdate: {}, {}", describe(dao), entity);
 		}
 		final Date createdAt = entity.getCreatedAt();
-		entity.setCreatedAt(createdAt != null ? createdAt : now);
 		final Date updatedAt = entity.getUpdatedAt();
-		entity.setUpdatedAt(updatedAt != null ? updatedAt : now);
-		final CreateOrUpdateStatus status = dao.createOrUpdate(entity);
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("insertOrUpdate: " + ReflectionToStringBuilder.toString(status) + ", " + entity);
+		final boolean result;
+		if (isNew(dao, entity)) {
+			entity.setCreatedAt(now);
+			result = dao.create(entity) == 1;
+		} else {
+			entity.setCreatedAt(createdAt != null ? createdAt : now);
+			entity.setUpdatedAt(now);
+			if (nativeUpsert != null) {
+				result = nativeUpsert.upsert(dao.getConnectionSource(), entity);
+			} else if (dao.update(entity) == 1) {
+				result = true;
+			} else {
+				entity.setCreatedAt(now);
+				entity.setUpdatedAt(updatedAt);
+				result = dao.create(entity) == 1;
+			}
 		}
-		final boolean created = (status != null) && status.isCreated();
-		final boolean updated = (status != null) && status.isUpdated();
-		entity.setCreatedAt(created ? now : createdAt);
-		entity.setUpdatedAt(updated ? now : updatedAt);
-		final boolean result = (updated && ((updatedAt == null) || now.equals(updatedAt))) || (dao.update(entity) == 1);
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("insertOrUpdate: " + result + ", " + entity);
+			LOGGER.debug("insertOrUpdate: {}, {}", result, entity);
 		}
 		return result;
 	}
 
+	private static <E extends Entity> boolean isNew(final Dao<E, ?> dao, final E entity) throws SQLException {
+		if (dao.extractId(entity) == null) {
+			return true;
+		}
+		final FieldType idField = dao instanceof BaseDaoImpl ? ((BaseDaoImpl<E, ?>) dao).getTableInfo().getIdField() : null;
+		return (idField != null) && idField.isGeneratedId() && idField.isObjectsFieldValueDefault(entity);
+	}
+
 	private static <E extends Entity> boolean update(final Dao<E, ?> dao, final E entity, final Date now) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("update: " + ReflectionToStringBuilder.toString(dao) + ", " + entity);
+			LOGGER.debug("update: {}, {}", describe(dao), entity);
 		}
 		entity.setUpdatedAt(now);
 		final boolean result = dao.update(entity) == 1;
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("update: " + result + ", " + entity);
+			LOGGER.debug("update: {}, {}", result, entity);
 		}
 		return result;
 	}
@@ -573,68 +2161,85 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 		updateBuilder.updateColumnValue(Entity.COLUMN_NAME_UPDATED_AT, now);
 		final PreparedUpdate<E> preparedUpdate = updateBuilder.prepare();
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("updateAll: " + ReflectionToStringBuilder.toString(dao) + ", " + preparedUpdate);
+			LOGGER.debug("updateAll: {}, {}", describe(dao), preparedUpdate);
 		}
 		final long result = dao.update(preparedUpdate);
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("updateAll: " + result);
+			LOGGER.debug("updateAll: {}", result);
 		}
 		return result;
 	}
 
 	private static <E extends Entity> boolean delete(final Dao<E, ?> dao, final E entity) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("delete: " + ReflectionToStringBuilder.toString(dao) + ", " + entity);
+			LOGGER.debug("delete: {}, {}", describe(dao), entity);
 		}
 		final boolean result = dao.delete(entity) == 1;
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("delete: " + result);
+			LOGGER.debug("delete: {}", result);
+		}
+		return result;
+	}
+
+	private static <E extends Entity> long deleteAll(final Dao<E, ?> dao, final Collection<E> entities) throws SQLException {
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("deleteAll: {}, {}", describe(dao), entities);
+		}
+		final long result = dao.delete(entities);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("deleteAll: {}", result);
 		}
 		return result;
 	}
 
 	private static <E extends Entity> long deleteAll(final Dao<E, ?> dao) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("deleteAll: " + ReflectionToStringBuilder.toString(dao));
+			LOGGER.debug("deleteAll: {}", describe(dao));
 		}
 		final long result = deleteAll(dao, dao.deleteBuilder());
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("deleteAll: " + result);
+			LOGGER.debug("deleteAll: {}", result);
 		}
 		return result;
 	}
 
 	private static <E extends Entity> long deleteAll(final Dao<E, ?> dao, final DeleteBuilder<E, ?> deleteBuilder) throws SQLException {
-		final PreparedDelete<E> preparedDelete = deleteBuilder.prepare();
+		return deleteAll(dao, deleteBuilder.prepare());
+	}
+
+	private static <E extends Entity> long deleteAll(final Dao<E, ?> dao, final PreparedDelete<E> preparedDelete) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("deleteAll: " + ReflectionToStringBuilder.toString(dao) + ", " + preparedDelete);
+			LOGGER.debug("deleteAll: {}, {}", describe(dao), preparedDelete);
 		}
 		final long result = dao.delete(preparedDelete);
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("deleteAll: " + result);
+			LOGGER.debug("deleteAll: {}", result);
 		}
 		return result;
 	}
 
 	private static <E extends Entity> long count(final Dao<E, ?> dao) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("count: " + ReflectionToStringBuilder.toString(dao));
+			LOGGER.debug("count: {}", describe(dao));
 		}
 		final long result = dao.countOf();
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("count: " + result);
+			LOGGER.debug("count: {}", result);
 		}
 		return result;
 	}
 
 	private static <E extends Entity> long count(final Dao<E, ?> dao, final QueryBuilder<E, ?> queryBuilder) throws SQLException {
-		final PreparedQuery<E> preparedQuery = queryBuilder.setCountOf(true).prepare();
+		return count(dao, queryBuilder.setCountOf(true).prepare());
+	}
+
+	private static <E extends Entity> long count(final Dao<E, ?> dao, final PreparedQuery<E> preparedQuery) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("count: " + ReflectionToStringBuilder.toString(dao) + ", " + preparedQuery);
+			LOGGER.debug("count: {}, {}", describe(dao), preparedQuery);
 		}
 		final long result = dao.countOf(preparedQuery);
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("count: " + result);
+			LOGGER.debug("count: {}", result);
 		}
 		return result;
 	}
@@ -642,7 +2247,7 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 	private static DatabaseConnection begin(final Dao<?, ?> dao) throws SQLException {
 		final DatabaseConnection connection = dao.startThreadConnection();
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("begin: " + ReflectionToStringBuilder.toString(dao) + ", " + connection);
+			LOGGER.debug("begin: {}, {}", describe(dao), connection);
 		}
 		dao.setAutoCommit(connection, false);
 		return connection;
@@ -650,7 +2255,7 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 
 	private static void commit(final Dao<?, ?> dao, final DatabaseConnection connection) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("commit: " + ReflectionToStringBuilder.toString(dao) + ", " + connection);
+			LOGGER.debug("commit: {}, {}", describe(dao), connection);
 		}
 		dao.commit(connection);
 		dao.endThreadConnection(connection);
@@ -658,9 +2263,315 @@ public abstract class AbstractDao<E extends Entity> implements com.github.t3t5u.
 
 	private static void rollback(final Dao<?, ?> dao, final DatabaseConnection connection) throws SQLException {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("rollback: " + ReflectionToStringBuilder.toString(dao) + ", " + connection);
+			LOGGER.debug("rollback: {}, {}", describe(dao), connection);
+		}
+		try {
+			dao.rollBack(connection);
+		} finally {
+			dao.endThreadConnection(connection);
+		}
+	}
+
+	private static final class Hooks<E extends Entity> {
+		private final LruCache<Object, PreparedStmt<E>> statementCache;
+		private final NativeUpsert<E> nativeUpsert;
+		private final EntityCache<E> entityCache;
+		private final ResultCache resultCache;
+		private final DaoListener listener;
+		private final SlowQueryLog slowQueryLog;
+		private final ReplicaRouter<E> replicaRouter;
+		private final SingleFlight<Object, Object> singleFlight;
+		private final WriteBehindBuffer<E> writeBehindBuffer;
+
+		private Hooks(final AbstractDao<E> owner) {
+			final Dao<E, Long> dao = owner.dao;
+			final int statementCacheSize = owner.getStatementCacheSize();
+			this.statementCache = statementCacheSize > 0 ? new LruCache<Object, PreparedStmt<E>>(statementCacheSize) : null;
+			this.nativeUpsert = owner.isNativeUpsert() ? NativeUpsert.create(dao.getConnectionSource().getDatabaseType(), owner.getTableInfo()) : null;
+			final int entityCacheSize = owner.getEntityCacheSize();
+			this.entityCache = entityCacheSize > 0 ? new EntityCache<E>(entityCacheSize, owner.getEntityCacheTtl()) : null;
+			if (entityCache != null) {
+				EntityCache.register(owner.tableName, entityCache);
+			}
+			final int resultCacheSize = owner.getResultCacheSize();
+			this.resultCache = resultCacheSize > 0 ? new ResultCache(resultCacheSize) : null;
+			this.listener = owner.getDaoListener();
+			this.slowQueryLog = owner.getSlowQueryLog();
+			this.singleFlight = owner.isSingleFlight() ? new SingleFlight<Object, Object>() : null;
+			final int writeBehindSize = owner.getWriteBehindSize();
+			this.writeBehindBuffer = writeBehindSize > 0 ? new WriteBehindBuffer<E>(owner, writeBehindSize, owner.getWriteBehindCapacity(), owner.getWriteBehindInterval(), owner.getWriteBehindRetries(), owner.getWriteBehindExecutor()) : null;
+			final List<Dao<E, Long>> replicaDaos = owner.database instanceof ReplicatedDatabase ? ((ReplicatedDatabase) owner.database).getReplicaDaos(owner.clazz) : null;
+			this.replicaRouter = (replicaDaos != null) && !replicaDaos.isEmpty() ? new ReplicaRouter<E>(dao, replicaDaos, owner.getReplicaStrategy(), owner.getReadYourWritesWindow()) : null;
+		}
+	}
+
+	private static final class Transaction {
+		private final DatabaseConnection connection;
+		private final Set<String> dirtyTables = new LinkedHashSet<String>();
+		private final Set<EntityCache<?>> dirtyEntityCaches = Collections.newSetFromMap(new IdentityHashMap<EntityCache<?>, Boolean>());
+
+		private Transaction(final DatabaseConnection connection) {
+			this.connection = connection;
+		}
+
+		private void invalidateDirtyTables() {
+			for (final String tableName : dirtyTables) {
+				ResultCache.incrementVersion(tableName);
+			}
+			for (final EntityCache<?> entityCache : dirtyEntityCaches) {
+				entityCache.invalidateAll();
+			}
+		}
+
+		private void markDirtyTablesWritten() {
+			for (final String tableName : dirtyTables) {
+				ReplicaRouter.markWrite(tableName);
+			}
+		}
+	}
+
+	private static final class StatementKey {
+		private final StatementType type;
+		private final String where;
+		private final List<?> orders;
+
+		private StatementKey(final StatementType type, final String where, final Object[] orders) {
+			this.type = type;
+			this.where = where;
+			this.orders = orders != null ? Arrays.asList(orders) : Collections.emptyList();
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(new Object[] { type, where, orders });
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof StatementKey)) {
+				return false;
+			}
+			final StatementKey other = (StatementKey) obj;
+			return (type == other.type) && (where != null ? where.equals(other.where) : other.where == null) && orders.equals(other.orders);
+		}
+	}
+
+	private static final class BoundStatement<E> implements PreparedQuery<E>, PreparedDelete<E> {
+		private final PreparedStmt<E> preparedStmt;
+		private final ArgumentHolder[] args;
+
+		private BoundStatement(final PreparedStmt<E> preparedStmt, final RawWhere rawWhere) {
+			this.preparedStmt = preparedStmt;
+			this.args = (rawWhere != null) && (rawWhere.getArgs() != null) ? rawWhere.getArgs() : new ArgumentHolder[0];
+		}
+
+		@Override
+		public E mapRow(final DatabaseResults results) throws SQLException {
+			return preparedStmt.mapRow(results);
+		}
+
+		@Override
+		public CompiledStatement compile(final DatabaseConnection databaseConnection, final StatementType type) throws SQLException {
+			return bind(preparedStmt.compile(databaseConnection, type));
+		}
+
+		@Override
+		public CompiledStatement compile(final DatabaseConnection databaseConnection, final StatementType type, final int resultFlags) throws SQLException {
+			return bind(preparedStmt.compile(databaseConnection, type, resultFlags));
+		}
+
+		@Override
+		public String getStatement() throws SQLException {
+			return preparedStmt.getStatement();
+		}
+
+		@Override
+		public StatementType getType() {
+			return preparedStmt.getType();
+		}
+
+		@Override
+		public void setArgumentHolderValue(final int index, final Object value) throws SQLException {
+			if ((index < 0) || (index >= args.length)) {
+				throw new SQLException("argument holder index " + index + " is not valid, only " + args.length + " in statement");
+			}
+			args[index].setValue(value);
+		}
+
+		private CompiledStatement bind(final CompiledStatement compiledStatement) throws SQLException {
+			try {
+				for (int i = 0; i < args.length; i++) {
+					compiledStatement.setObject(i, args[i].getSqlArgValue(), args[i].getSqlType());
+				}
+				return compiledStatement;
+			} catch (final SQLException e) {
+				compiledStatement.closeQuietly();
+				throw e;
+			}
+		}
+	}
+
+	private final class ReadIterator implements CloseableIterator<E> {
+		private final Dao<E, Long> readDao;
+		private final CloseableIterator<E> iterator;
+		private boolean released;
+
+		private ReadIterator(final Dao<E, Long> readDao, final CloseableIterator<E> iterator) {
+			this.readDao = readDao;
+			this.iterator = iterator;
+		}
+
+		@Override
+		public boolean hasNext() {
+			final boolean result = iterator.hasNext();
+			if (!result) {
+				release();
+			}
+			return result;
+		}
+
+		@Override
+		public E next() {
+			return iterator.next();
+		}
+
+		@Override
+		public void remove() {
+			iterator.remove();
+		}
+
+		@Override
+		public void close() throws SQLException {
+			try {
+				iterator.close();
+			} finally {
+				release();
+			}
+		}
+
+		@Override
+		public void closeQuietly() {
+			try {
+				iterator.closeQuietly();
+			} finally {
+				release();
+			}
+		}
+
+		@Override
+		public DatabaseResults getRawResults() {
+			return iterator.getRawResults();
+		}
+
+		@Override
+		public void moveToNext() {
+			iterator.moveToNext();
+		}
+
+		@Override
+		public E first() throws SQLException {
+			return iterator.first();
+		}
+
+		@Override
+		public E previous() throws SQLException {
+			return iterator.previous();
+		}
+
+		@Override
+		public E current() throws SQLException {
+			return iterator.current();
+		}
+
+		@Override
+		public E nextThrow() throws SQLException {
+			return iterator.nextThrow();
+		}
+
+		@Override
+		public E moveRelative(final int offset) throws SQLException {
+			return iterator.moveRelative(offset);
+		}
+
+		private void release() {
+			if (!released) {
+				released = true;
+				releaseReadDao(readDao);
+			}
+		}
+	}
+
+	private interface EntityWriter<E extends Entity> {
+		long write(Dao<E, Long> dao, List<E> entities, Date now) throws SQLException;
+	}
+
+	private interface RowMapper<R> {
+		R mapRow(DatabaseResults results) throws SQLException;
+	}
+
+	private static final class StringRowMapper<R> implements RowMapper<R> {
+		private final RawRowMapper<R> rawRowMapper;
+		private String[] columnNames;
+
+		private StringRowMapper(final RawRowMapper<R> rawRowMapper) {
+			this.rawRowMapper = rawRowMapper;
+		}
+
+		@Override
+		public R mapRow(final DatabaseResults results) throws SQLException {
+			if (columnNames == null) {
+				columnNames = results.getColumnNames();
+			}
+			final String[] values = new String[columnNames.length];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = results.getString(i);
+			}
+			return rawRowMapper.mapRow(columnNames, values);
+		}
+	}
+
+	private static final class ArrayRowMapper implements RowMapper<Object[]> {
+		private final FieldType[] fieldTypes;
+		private final Map<String, Integer> columnPositions = new HashMap<String, Integer>();
+
+		private ArrayRowMapper(final FieldType[] fieldTypes) {
+			this.fieldTypes = fieldTypes;
+		}
+
+		@Override
+		public Object[] mapRow(final DatabaseResults results) throws SQLException {
+			final Object[] values = new Object[fieldTypes.length];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = fieldTypes[i].resultToJava(results, columnPositions);
+			}
+			return values;
+		}
+	}
+
+	private static final class ConstructorRowMapper<R> implements RowMapper<R> {
+		private final Constructor<R> constructor;
+		private final ArrayRowMapper arrayRowMapper;
+
+		private ConstructorRowMapper(final Constructor<R> constructor, final FieldType[] fieldTypes) {
+			this.constructor = constructor;
+			this.arrayRowMapper = new ArrayRowMapper(fieldTypes);
+		}
+
+		@Override
+		public R mapRow(final DatabaseResults results) throws SQLException {
+			final Object[] values = arrayRowMapper.mapRow(results);
+			try {
+				return constructor.newInstance(values);
+			} catch (final InstantiationException e) {
+				throw new SQLException(e);
+			} catch (final IllegalAccessException e) {
+				throw new SQLException(e);
+			} catch (final InvocationTargetException e) {
+				throw new SQLException(e.getCause());
+			}
 		}
-		dao.rollBack(connection);
-		dao.endThreadConnection(connection);
 	}
 }
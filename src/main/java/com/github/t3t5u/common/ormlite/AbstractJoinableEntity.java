@@ -1,15 +1,27 @@
 package com.github.t3t5u.common.ormlite;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToOne;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
 import com.github.t3t5u.common.database.Entity;
+import com.j256.ormlite.field.DatabaseField;
 
 @SuppressWarnings("serial")
 public abstract class AbstractJoinableEntity implements Entity {
+	private static final ConcurrentMap<Class<?>, EntityFields> FIELDS = new ConcurrentHashMap<Class<?>, EntityFields>();
 	@Column(name = COLUMN_NAME_CREATED_AT, nullable = false)
 	private Date createdAt;
 	@Column(name = COLUMN_NAME_UPDATED_AT)
@@ -37,6 +49,78 @@ public abstract class AbstractJoinableEntity implements Entity {
 
 	@Override
 	public String toString() {
-		return ToStringBuilder.reflectionToString(this);
+		final EntityFields entityFields = getEntityFields(getClass());
+		final ToStringBuilder builder = new ToStringBuilder(this);
+		for (int i = 0; i < entityFields.fields.length; i++) {
+			final Object value = getValue(entityFields.fields[i], this);
+			builder.append(entityFields.fields[i].getName(), entityFields.foreign[i] ? toForeignString(value) : value);
+		}
+		return builder.toString();
+	}
+
+	private static String toForeignString(final Object value) {
+		if (value == null) {
+			return null;
+		}
+		final Field idField = getEntityFields(value.getClass()).idField;
+		return value.getClass().getSimpleName() + "#" + (idField != null ? getValue(idField, value) : "?");
+	}
+
+	private static Object getValue(final Field field, final Object obj) {
+		try {
+			return field.get(obj);
+		} catch (final IllegalAccessException e) {
+			return "?";
+		}
+	}
+
+	private static EntityFields getEntityFields(final Class<?> clazz) {
+		final EntityFields cached = FIELDS.get(clazz);
+		if (cached != null) {
+			return cached;
+		}
+		final List<Field> fields = new ArrayList<Field>();
+		final List<Boolean> foreign = new ArrayList<Boolean>();
+		Field idField = null;
+		for (Class<?> c = clazz; (c != null) && (c != Object.class); c = c.getSuperclass()) {
+			for (final Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+					continue;
+				}
+				final DatabaseField databaseField = field.getAnnotation(DatabaseField.class);
+				if ((databaseField != null) && !databaseField.persisted()) {
+					continue;
+				}
+				final boolean isForeign = ((databaseField != null) && databaseField.foreign()) || field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToOne.class) || field.isAnnotationPresent(JoinColumn.class);
+				if ((databaseField == null) && !isForeign && !field.isAnnotationPresent(Column.class) && !field.isAnnotationPresent(Id.class)) {
+					continue;
+				}
+				field.setAccessible(true);
+				fields.add(field);
+				foreign.add(isForeign);
+				if ((idField == null) && (databaseField != null ? databaseField.id() || databaseField.generatedId() || !databaseField.generatedIdSequence().isEmpty() : field.isAnnotationPresent(Id.class))) {
+					idField = field;
+				}
+			}
+		}
+		final boolean[] foreignArray = new boolean[foreign.size()];
+		for (int i = 0; i < foreignArray.length; i++) {
+			foreignArray[i] = foreign.get(i);
+		}
+		final EntityFields entityFields = new EntityFields(fields.toArray(new Field[fields.size()]), foreignArray, idField);
+		final EntityFields previous = FIELDS.putIfAbsent(clazz, entityFields);
+		return previous != null ? previous : entityFields;
+	}
+
+	private static final class EntityFields {
+		private final Field[] fields;
+		private final boolean[] foreign;
+		private final Field idField;
+
+		private EntityFields(final Field[] fields, final boolean[] foreign, final Field idField) {
+			this.fields = fields;
+			this.foreign = foreign;
+			this.idField = idField;
+		}
 	}
 }
@@ -0,0 +1,311 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.github.t3t5u.common.database.WhereVisitor;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.field.SqlType;
+import com.j256.ormlite.stmt.ArgumentHolder;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.table.TableInfo;
+
+public class ArgumentWhereVisitor extends WhereVisitor {
+	private static final Set<String> COMPARISONS = new HashSet<String>(Arrays.asList("=", "<>", "!=", "<", "<=", ">", ">="));
+
+	public RawWhere toRawWhere(final String where, final TableInfo<?, ?> tableInfo) {
+		final List<Token> tokens = tokenize(where);
+		final List<Token> significant = new ArrayList<Token>(tokens.size());
+		for (final Token token : tokens) {
+			if (token.type != TokenType.SPACE) {
+				significant.add(token);
+			}
+		}
+		if (tableInfo != null) {
+			for (int i = 0; i < significant.size(); i++) {
+				if (isOperandStart(significant, i)) {
+					liftColumnFirst(significant, i, tableInfo);
+					liftLiteralFirst(significant, i, tableInfo);
+				}
+			}
+		}
+		final StringBuilder rawSql = new StringBuilder(where.length());
+		final List<ArgumentHolder> args = new ArrayList<ArgumentHolder>();
+		for (final Token token : tokens) {
+			if (token.arg != null) {
+				rawSql.append('?');
+				args.add(token.arg);
+			} else {
+				rawSql.append(token.text);
+			}
+		}
+		return new RawWhere(rawSql.toString(), args.toArray(new ArgumentHolder[args.size()]));
+	}
+
+	protected ArgumentHolder toArgument(final FieldType fieldType, final String literal, final boolean quoted) {
+		if (fieldType.getColumnDefinition() != null) {
+			return null;
+		}
+		final SqlType sqlType = fieldType.getSqlType();
+		try {
+			switch (sqlType) {
+			case STRING:
+			case LONG_STRING:
+				return quoted ? new SelectArg(sqlType, literal) : null;
+			case BYTE:
+				return !quoted ? new SelectArg(sqlType, Byte.valueOf(literal)) : null;
+			case SHORT:
+				return !quoted ? new SelectArg(sqlType, Short.valueOf(literal)) : null;
+			case INTEGER:
+				return !quoted ? new SelectArg(sqlType, Integer.valueOf(literal)) : null;
+			case LONG:
+				return !quoted ? new SelectArg(sqlType, Long.valueOf(literal)) : null;
+			case FLOAT:
+				return !quoted ? new SelectArg(sqlType, Float.valueOf(literal)) : null;
+			case DOUBLE:
+				return !quoted ? new SelectArg(sqlType, Double.valueOf(literal)) : null;
+			default:
+				return null;
+			}
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private void liftColumnFirst(final List<Token> tokens, final int start, final TableInfo<?, ?> tableInfo) {
+		final int end = skipColumn(tokens, start);
+		final FieldType fieldType = end > start ? findFieldType(tokens, start, end, tableInfo) : null;
+		if (fieldType == null) {
+			return;
+		}
+		int i = end;
+		if (isComparison(tokens, i)) {
+			lift(tokens, fieldType, isOperandEnd(tokens, i + 2), i + 1);
+			return;
+		}
+		i = isKeyword(tokens, i, "NOT") ? i + 1 : i;
+		if (isKeyword(tokens, i, "LIKE")) {
+			lift(tokens, fieldType, isString(tokens, i + 1) && isOperandEnd(tokens, i + 2), i + 1);
+		} else if (isKeyword(tokens, i, "BETWEEN")) {
+			lift(tokens, fieldType, isKeyword(tokens, i + 2, "AND") && isOperandEnd(tokens, i + 4), i + 1, i + 3);
+		} else if (isKeyword(tokens, i, "IN") && isText(tokens, i + 1, "(")) {
+			final List<Integer> positions = new ArrayList<Integer>();
+			int j = i + 2;
+			while (isLiteral(tokens, j)) {
+				positions.add(j);
+				if (!isText(tokens, j + 1, ",")) {
+					break;
+				}
+				j += 2;
+			}
+			final boolean closed = !positions.isEmpty() && isText(tokens, positions.get(positions.size() - 1) + 1, ")");
+			final int[] indexes = new int[positions.size()];
+			for (int k = 0; k < indexes.length; k++) {
+				indexes[k] = positions.get(k);
+			}
+			lift(tokens, fieldType, closed && isOperandEnd(tokens, j + 2), indexes);
+		}
+	}
+
+	private void liftLiteralFirst(final List<Token> tokens, final int start, final TableInfo<?, ?> tableInfo) {
+		if (!isLiteral(tokens, start) || !isComparison(tokens, start + 1)) {
+			return;
+		}
+		final int end = skipColumn(tokens, start + 2);
+		final FieldType fieldType = end > start + 2 ? findFieldType(tokens, start + 2, end, tableInfo) : null;
+		if (fieldType != null) {
+			lift(tokens, fieldType, isOperandEnd(tokens, end), start);
+		}
+	}
+
+	private void lift(final List<Token> tokens, final FieldType fieldType, final boolean matched, final int... indexes) {
+		if (!matched) {
+			return;
+		}
+		final ArgumentHolder[] args = new ArgumentHolder[indexes.length];
+		for (int i = 0; i < indexes.length; i++) {
+			final Token token = isLiteral(tokens, indexes[i]) ? tokens.get(indexes[i]) : null;
+			args[i] = token != null ? toArgument(fieldType, token.value, token.type == TokenType.STRING) : null;
+			if (args[i] == null) {
+				return;
+			}
+		}
+		for (int i = 0; i < indexes.length; i++) {
+			tokens.get(indexes[i]).arg = args[i];
+		}
+	}
+
+	private static FieldType findFieldType(final List<Token> tokens, final int start, final int end, final TableInfo<?, ?> tableInfo) {
+		if ((end - start == 3) && !matches(tokens.get(start), tableInfo.getTableName())) {
+			return null;
+		}
+		final Token column = tokens.get(end - 1);
+		for (final FieldType fieldType : tableInfo.getFieldTypes()) {
+			if (matches(column, fieldType.getColumnName())) {
+				return fieldType;
+			}
+		}
+		return null;
+	}
+
+	private static boolean matches(final Token token, final String name) {
+		return token.type == TokenType.QUOTED ? token.value.equals(name) : token.value.equalsIgnoreCase(name);
+	}
+
+	private static int skipColumn(final List<Token> tokens, final int start) {
+		if (!isName(tokens, start)) {
+			return start;
+		}
+		return isText(tokens, start + 1, ".") && isName(tokens, start + 2) ? start + 3 : start + 1;
+	}
+
+	private static boolean isOperandStart(final List<Token> tokens, final int i) {
+		return (i == 0) || isText(tokens, i - 1, "(") || isKeyword(tokens, i - 1, "AND") || isKeyword(tokens, i - 1, "OR") || isKeyword(tokens, i - 1, "NOT");
+	}
+
+	private static boolean isOperandEnd(final List<Token> tokens, final int i) {
+		return (i >= tokens.size()) || isText(tokens, i, ")") || isKeyword(tokens, i, "AND") || isKeyword(tokens, i, "OR");
+	}
+
+	private static boolean isComparison(final List<Token> tokens, final int i) {
+		return (i < tokens.size()) && (tokens.get(i).type == TokenType.OPERATOR) && COMPARISONS.contains(tokens.get(i).text);
+	}
+
+	private static boolean isKeyword(final List<Token> tokens, final int i, final String keyword) {
+		return (i < tokens.size()) && (tokens.get(i).type == TokenType.WORD) && keyword.equalsIgnoreCase(tokens.get(i).text);
+	}
+
+	private static boolean isText(final List<Token> tokens, final int i, final String text) {
+		return (i < tokens.size()) && text.equals(tokens.get(i).text);
+	}
+
+	private static boolean isName(final List<Token> tokens, final int i) {
+		return (i < tokens.size()) && ((tokens.get(i).type == TokenType.WORD) || (tokens.get(i).type == TokenType.QUOTED));
+	}
+
+	private static boolean isLiteral(final List<Token> tokens, final int i) {
+		return (i < tokens.size()) && ((tokens.get(i).type == TokenType.STRING) || (tokens.get(i).type == TokenType.NUMBER));
+	}
+
+	private static boolean isString(final List<Token> tokens, final int i) {
+		return (i < tokens.size()) && (tokens.get(i).type == TokenType.STRING);
+	}
+
+	private static List<Token> tokenize(final String where) {
+		final int length = where.length();
+		final List<Token> tokens = new ArrayList<Token>();
+		int i = 0;
+		while (i < length) {
+			final char c = where.charAt(i);
+			final int end;
+			if (Character.isWhitespace(c)) {
+				int j = i + 1;
+				while ((j < length) && Character.isWhitespace(where.charAt(j))) {
+					j++;
+				}
+				end = j;
+				tokens.add(new Token(TokenType.SPACE, where.substring(i, end), null));
+			} else if (c == '\'') {
+				final StringBuilder value = new StringBuilder();
+				final int j = scanString(where, i + 1, value);
+				end = j < 0 ? length : j;
+				tokens.add(new Token(j < 0 ? TokenType.OTHER : TokenType.STRING, where.substring(i, end), value.toString()));
+			} else if ((c == '"') || (c == '`') || (c == '[')) {
+				final int j = where.indexOf(c == '[' ? ']' : c, i + 1);
+				end = j < 0 ? length : j + 1;
+				tokens.add(new Token(j < 0 ? TokenType.OTHER : TokenType.QUOTED, where.substring(i, end), j < 0 ? null : where.substring(i + 1, j)));
+			} else if (Character.isDigit(c)) {
+				final int j = scanNumber(where, i);
+				if ((j < length) && isIdentifierPart(where.charAt(j))) {
+					end = scanIdentifier(where, j);
+					tokens.add(new Token(TokenType.OTHER, where.substring(i, end), null));
+				} else {
+					end = j;
+					tokens.add(new Token(TokenType.NUMBER, where.substring(i, end), where.substring(i, end)));
+				}
+			} else if (isIdentifierPart(c)) {
+				end = scanIdentifier(where, i);
+				tokens.add(new Token(TokenType.WORD, where.substring(i, end), where.substring(i, end)));
+			} else if ((c == '<') || (c == '>') || (c == '=') || (c == '!')) {
+				end = (i + 1 < length) && ((where.charAt(i + 1) == '=') || ((c == '<') && (where.charAt(i + 1) == '>'))) ? i + 2 : i + 1;
+				tokens.add(new Token(TokenType.OPERATOR, where.substring(i, end), null));
+			} else {
+				end = i + 1;
+				tokens.add(new Token(TokenType.OTHER, where.substring(i, end), null));
+			}
+			i = end;
+		}
+		return tokens;
+	}
+
+	private static int scanString(final String where, final int start, final StringBuilder value) {
+		final int length = where.length();
+		for (int i = start; i < length; i++) {
+			final char c = where.charAt(i);
+			if (c != '\'') {
+				value.append(c);
+			} else if ((i + 1 < length) && (where.charAt(i + 1) == '\'')) {
+				value.append(c);
+				i++;
+			} else {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	private static int scanNumber(final String where, final int start) {
+		final int length = where.length();
+		int i = skipDigits(where, start);
+		if ((i + 1 < length) && (where.charAt(i) == '.') && Character.isDigit(where.charAt(i + 1))) {
+			i = skipDigits(where, i + 1);
+		}
+		if ((i + 1 < length) && ((where.charAt(i) == 'e') || (where.charAt(i) == 'E'))) {
+			final int j = (where.charAt(i + 1) == '+') || (where.charAt(i + 1) == '-') ? i + 2 : i + 1;
+			if ((j < length) && Character.isDigit(where.charAt(j))) {
+				i = skipDigits(where, j);
+			}
+		}
+		return i;
+	}
+
+	private static int scanIdentifier(final String where, final int start) {
+		int i = start;
+		while ((i < where.length()) && isIdentifierPart(where.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int skipDigits(final String where, final int start) {
+		int i = start;
+		while ((i < where.length()) && Character.isDigit(where.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean isIdentifierPart(final char c) {
+		return Character.isLetterOrDigit(c) || (c == '_') || (c == '$');
+	}
+
+	private enum TokenType {
+		SPACE, STRING, QUOTED, NUMBER, WORD, OPERATOR, OTHER
+	}
+
+	private static final class Token {
+		private final TokenType type;
+		private final String text;
+		private final String value;
+		private ArgumentHolder arg;
+
+		private Token(final TokenType type, final String text, final String value) {
+			this.type = type;
+			this.text = text;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,256 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.t3t5u.common.database.Dao;
+import com.github.t3t5u.common.database.Entity;
+
+public class AsyncDao<E extends Entity> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncDao.class);
+	private static final int DEFAULT_MAX_CONCURRENCY = 16;
+	private static final Map<Database, Limiter> LIMITERS = new WeakHashMap<Database, Limiter>();
+	private final Dao<E> dao;
+	private final ExecutorService executor;
+	private final Limiter limiter;
+
+	public AsyncDao(final Database database, final Dao<E> dao) {
+		this(database, dao, null, DEFAULT_MAX_CONCURRENCY);
+	}
+
+	public AsyncDao(final Database database, final Dao<E> dao, final ExecutorService executor, final int maxConcurrency) {
+		if ((database == null) || (dao == null) || (maxConcurrency <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		this.dao = dao;
+		this.executor = executor != null ? executor : DefaultExecutorHolder.EXECUTOR;
+		this.limiter = getLimiter(database, maxConcurrency);
+	}
+
+	public Future<E> find(final long id) {
+		return submit(new Callable<E>() {
+			@Override
+			public E call() {
+				return dao.find(id);
+			}
+		});
+	}
+
+	public Future<List<E>> findAll() {
+		return submit(new Callable<List<E>>() {
+			@Override
+			public List<E> call() {
+				return dao.findAll();
+			}
+		});
+	}
+
+	public Future<Boolean> insert(final E entity) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return dao.insert(entity);
+			}
+		});
+	}
+
+	public Future<Boolean> insertOrUpdate(final E entity) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return dao.insertOrUpdate(entity);
+			}
+		});
+	}
+
+	public Future<Boolean> update(final E entity) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return dao.update(entity);
+			}
+		});
+	}
+
+	public Future<Boolean> delete(final E entity) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return dao.delete(entity);
+			}
+		});
+	}
+
+	public Future<Long> deleteAll() {
+		return submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.deleteAll();
+			}
+		});
+	}
+
+	public Future<Long> count() {
+		return submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.count();
+			}
+		});
+	}
+
+	public <T> Future<T> submit(final Callable<T> callable) {
+		final Task<T> task = new Task<T>(callable);
+		limiter.execute(new Entry(executor, task, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				} finally {
+					limiter.release();
+				}
+			}
+		}));
+		return task;
+	}
+
+	public Dao<E> getDao() {
+		return dao;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	public int getAvailablePermits() {
+		return limiter.getAvailablePermits();
+	}
+
+	public int getQueueSize() {
+		return limiter.getQueueSize();
+	}
+
+	private static Limiter getLimiter(final Database database, final int maxConcurrency) {
+		synchronized (LIMITERS) {
+			Limiter limiter = LIMITERS.get(database);
+			if (limiter == null) {
+				limiter = new Limiter(maxConcurrency);
+				LIMITERS.put(database, limiter);
+			} else if (limiter.maxConcurrency != maxConcurrency) {
+				throw new IllegalArgumentException("maxConcurrency " + maxConcurrency + " does not match " + limiter.maxConcurrency + " already in use for this database");
+			}
+			return limiter;
+		}
+	}
+
+	private static ExecutorService newDefaultExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (final Exception e) {
+			LOGGER.debug("newDefaultExecutor", e);
+		}
+		final AtomicInteger sequence = new AtomicInteger();
+		return Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "AsyncDao-" + sequence.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private static final class Limiter {
+		private final int maxConcurrency;
+		private final Queue<Entry> queue = new ArrayDeque<Entry>();
+		private int running;
+
+		private Limiter(final int maxConcurrency) {
+			this.maxConcurrency = maxConcurrency;
+		}
+
+		private void execute(final Entry entry) {
+			synchronized (this) {
+				if (running >= maxConcurrency) {
+					queue.add(entry);
+					return;
+				}
+				running++;
+			}
+			try {
+				entry.executor.execute(entry.runnable);
+			} catch (final RejectedExecutionException e) {
+				release();
+				throw e;
+			}
+		}
+
+		private void release() {
+			while (true) {
+				final Entry next;
+				synchronized (this) {
+					next = queue.poll();
+					if (next == null) {
+						running--;
+						return;
+					}
+				}
+				try {
+					next.executor.execute(next.runnable);
+					return;
+				} catch (final RejectedExecutionException e) {
+					LOGGER.warn("release", e);
+					next.task.reject(e);
+				}
+			}
+		}
+
+		private synchronized int getAvailablePermits() {
+			return maxConcurrency - running;
+		}
+
+		private synchronized int getQueueSize() {
+			return queue.size();
+		}
+	}
+
+	private static final class Entry {
+		private final ExecutorService executor;
+		private final Task<?> task;
+		private final Runnable runnable;
+
+		private Entry(final ExecutorService executor, final Task<?> task, final Runnable runnable) {
+			this.executor = executor;
+			this.task = task;
+			this.runnable = runnable;
+		}
+	}
+
+	private static final class Task<T> extends FutureTask<T> {
+		private Task(final Callable<T> callable) {
+			super(callable);
+		}
+
+		private void reject(final Throwable t) {
+			setException(t);
+		}
+	}
+
+	private static final class DefaultExecutorHolder {
+		private static final ExecutorService EXECUTOR = newDefaultExecutor();
+	}
+}
@@ -22,4 +22,29 @@ public class ColumnOrder<E extends Entity> implements Order<E> {
 	protected QueryBuilder<E, Long> orderBy(final QueryBuilder<E, Long> queryBuilder, final String columnName, final boolean ascending, final Date now) {
 		return queryBuilder.orderBy(columnName, ascending);
 	}
+
+	public String getColumnName() {
+		return columnName;
+	}
+
+	public boolean isAscending() {
+		return ascending;
+	}
+
+	@Override
+	public int hashCode() {
+		return (31 * (columnName != null ? columnName.hashCode() : 0)) + (ascending ? 1 : 0);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if ((obj == null) || (getClass() != obj.getClass())) {
+			return false;
+		}
+		final ColumnOrder<?> other = (ColumnOrder<?>) obj;
+		return (columnName != null ? columnName.equals(other.columnName) : other.columnName == null) && (ascending == other.ascending);
+	}
 }
@@ -0,0 +1,5 @@
+package com.github.t3t5u.common.ormlite;
+
+public interface DaoListener {
+	void onOperation(Class<?> clazz, DaoOperation operation, long elapsedNanos, long rows, Throwable error);
+}
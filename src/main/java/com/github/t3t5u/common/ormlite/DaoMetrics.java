@@ -0,0 +1,62 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class DaoMetrics implements DaoListener {
+	private static final DaoOperation[] OPERATIONS = DaoOperation.values();
+	private final ConcurrentMap<Class<?>, AtomicReferenceArray<OperationMetrics>> metrics = new ConcurrentHashMap<Class<?>, AtomicReferenceArray<OperationMetrics>>();
+
+	@Override
+	public void onOperation(final Class<?> clazz, final DaoOperation operation, final long elapsedNanos, final long rows, final Throwable error) {
+		getOrCreate(clazz, operation).record(elapsedNanos, rows, error != null);
+	}
+
+	public OperationMetrics get(final Class<?> clazz, final DaoOperation operation) {
+		final AtomicReferenceArray<OperationMetrics> array = metrics.get(clazz);
+		return array != null ? array.get(operation.ordinal()) : null;
+	}
+
+	public Map<DaoOperation, OperationMetrics> get(final Class<?> clazz) {
+		final Map<DaoOperation, OperationMetrics> result = new EnumMap<DaoOperation, OperationMetrics>(DaoOperation.class);
+		final AtomicReferenceArray<OperationMetrics> array = metrics.get(clazz);
+		if (array == null) {
+			return result;
+		}
+		for (final DaoOperation operation : OPERATIONS) {
+			final OperationMetrics operationMetrics = array.get(operation.ordinal());
+			if (operationMetrics != null) {
+				result.put(operation, operationMetrics);
+			}
+		}
+		return result;
+	}
+
+	public Set<Class<?>> getClasses() {
+		return Collections.unmodifiableSet(metrics.keySet());
+	}
+
+	public void clear() {
+		metrics.clear();
+	}
+
+	private OperationMetrics getOrCreate(final Class<?> clazz, final DaoOperation operation) {
+		AtomicReferenceArray<OperationMetrics> array = metrics.get(clazz);
+		if (array == null) {
+			final AtomicReferenceArray<OperationMetrics> newArray = new AtomicReferenceArray<OperationMetrics>(OPERATIONS.length);
+			array = metrics.putIfAbsent(clazz, newArray);
+			array = array != null ? array : newArray;
+		}
+		final OperationMetrics operationMetrics = array.get(operation.ordinal());
+		if (operationMetrics != null) {
+			return operationMetrics;
+		}
+		array.compareAndSet(operation.ordinal(), null, new OperationMetrics());
+		return array.get(operation.ordinal());
+	}
+}
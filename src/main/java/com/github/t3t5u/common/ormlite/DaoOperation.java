@@ -0,0 +1,5 @@
+package com.github.t3t5u.common.ormlite;
+
+public enum DaoOperation {
+	FIND, FIND_ALL, FIND_PAGE, ITERATE, FOR_EACH, PROJECT, COUNT, AGGREGATE, INSERT, INSERT_ALL, INSERT_OR_UPDATE, INSERT_OR_UPDATE_ALL, UPDATE, UPDATE_ALL, DELETE, DELETE_ALL, BEGIN, COMMIT, ROLLBACK
+}
@@ -0,0 +1,158 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.t3t5u.common.database.Entity;
+
+public class EntityCache<E extends Entity> {
+	private static final ConcurrentMap<String, Set<EntityCache<?>>> CACHES = new ConcurrentHashMap<String, Set<EntityCache<?>>>();
+	private final int maxSize;
+	private final long ttlNanos;
+	private final ConcurrentMap<Long, CacheEntry<E>> map = new ConcurrentHashMap<Long, CacheEntry<E>>();
+	private final Queue<CacheEntry<E>> queue = new ConcurrentLinkedQueue<CacheEntry<E>>();
+	private final AtomicInteger queueSize = new AtomicInteger();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	public EntityCache(final int maxSize, final long ttlMillis) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxSize = maxSize;
+		this.ttlNanos = ttlMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMillis) : 0;
+	}
+
+	public E get(final long id) {
+		final CacheEntry<E> entry = map.get(id);
+		if (entry == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		if (entry.isExpired(System.nanoTime())) {
+			if (map.remove(id, entry)) {
+				evictionCount.incrementAndGet();
+			}
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return entry.value;
+	}
+
+	public void put(final long id, final E value) {
+		if (value == null) {
+			return;
+		}
+		final CacheEntry<E> entry = new CacheEntry<E>(id, value, ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0);
+		map.put(id, entry);
+		queue.offer(entry);
+		queueSize.incrementAndGet();
+		evict();
+	}
+
+	public void invalidate(final long id) {
+		map.remove(id);
+	}
+
+	public void invalidateAll() {
+		map.clear();
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	public static void register(final String tableName, final EntityCache<?> entityCache) {
+		Set<EntityCache<?>> caches = CACHES.get(tableName);
+		if (caches == null) {
+			final Set<EntityCache<?>> newCaches = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<EntityCache<?>, Boolean>()));
+			caches = CACHES.putIfAbsent(tableName, newCaches);
+			caches = caches != null ? caches : newCaches;
+		}
+		caches.add(entityCache);
+	}
+
+	public static List<EntityCache<?>> getCaches(final String tableName) {
+		final Set<EntityCache<?>> caches = CACHES.get(tableName);
+		if (caches == null) {
+			return Collections.emptyList();
+		}
+		synchronized (caches) {
+			return new ArrayList<EntityCache<?>>(caches);
+		}
+	}
+
+	public static void invalidate(final String tableName, final Collection<Long> ids) {
+		for (final EntityCache<?> entityCache : getCaches(tableName)) {
+			for (final Long id : ids) {
+				entityCache.invalidate(id);
+			}
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	private void evict() {
+		while ((map.size() > maxSize) || (queueSize.get() > 2 * maxSize)) {
+			final CacheEntry<E> entry = queue.poll();
+			if (entry == null) {
+				return;
+			}
+			queueSize.decrementAndGet();
+			if (map.get(entry.id) != entry) {
+				continue;
+			}
+			if (map.size() <= maxSize) {
+				queue.offer(entry);
+				queueSize.incrementAndGet();
+				continue;
+			}
+			if (map.remove(entry.id, entry)) {
+				evictionCount.incrementAndGet();
+			}
+		}
+	}
+
+	private static final class CacheEntry<E> {
+		private final long id;
+		private final E value;
+		private final long expiresAt;
+
+		private CacheEntry(final long id, final E value, final long expiresAt) {
+			this.id = id;
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpired(final long now) {
+			return (expiresAt != 0) && (now - expiresAt >= 0);
+		}
+	}
+}
@@ -0,0 +1,9 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.sql.SQLException;
+
+import com.github.t3t5u.common.database.Entity;
+
+public interface EntityVisitor<E extends Entity> {
+	boolean visit(E entity) throws SQLException;
+}
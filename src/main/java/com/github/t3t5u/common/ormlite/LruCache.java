@@ -0,0 +1,72 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LruCache<K, V> {
+	private final int maxSize;
+	private final Map<K, V> map;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	public LruCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxSize = maxSize;
+		this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+				return size() > LruCache.this.maxSize;
+			}
+		};
+	}
+
+	public V get(final K key) {
+		final V value;
+		synchronized (map) {
+			value = map.get(key);
+		}
+		(value != null ? hitCount : missCount).incrementAndGet();
+		return value;
+	}
+
+	public V put(final K key, final V value) {
+		synchronized (map) {
+			return map.put(key, value);
+		}
+	}
+
+	public V remove(final K key) {
+		synchronized (map) {
+			return map.remove(key);
+		}
+	}
+
+	public void clear() {
+		synchronized (map) {
+			map.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (map) {
+			return map.size();
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+}
@@ -0,0 +1,97 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.t3t5u.common.database.Entity;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.table.TableInfo;
+
+public class NativeUpsert<E extends Entity> {
+	private final String statement;
+	private final FieldType[] fieldTypes;
+
+	protected NativeUpsert(final String statement, final FieldType[] fieldTypes) {
+		this.statement = statement;
+		this.fieldTypes = fieldTypes;
+	}
+
+	public static <E extends Entity> NativeUpsert<E> create(final DatabaseType databaseType, final TableInfo<E, ?> tableInfo) {
+		if ((databaseType == null) || (tableInfo == null) || (tableInfo.getIdField() == null)) {
+			return null;
+		}
+		final String databaseName = databaseType.getDatabaseName();
+		final boolean onConflict = "Postgres".equals(databaseName) || "SQLite".equals(databaseName);
+		final boolean onDuplicateKey = "MySQL".equals(databaseName);
+		if (!onConflict && !onDuplicateKey) {
+			return null;
+		}
+		final List<FieldType> fieldTypes = new ArrayList<FieldType>();
+		for (final FieldType fieldType : tableInfo.getFieldTypes()) {
+			if (fieldType.isVersion()) {
+				return null;
+			}
+			if (!fieldType.isForeignCollection() && !fieldType.isReadOnly()) {
+				fieldTypes.add(fieldType);
+			}
+		}
+		final StringBuilder sb = new StringBuilder("INSERT INTO ");
+		databaseType.appendEscapedEntityName(sb, tableInfo.getTableName());
+		sb.append(" (");
+		for (int i = 0; i < fieldTypes.size(); i++) {
+			sb.append(i > 0 ? ", " : "");
+			databaseType.appendEscapedEntityName(sb, fieldTypes.get(i).getColumnName());
+		}
+		sb.append(") VALUES (");
+		for (int i = 0; i < fieldTypes.size(); i++) {
+			sb.append(i > 0 ? ", ?" : "?");
+		}
+		sb.append(')');
+		if (onConflict) {
+			sb.append(" ON CONFLICT (");
+			databaseType.appendEscapedEntityName(sb, tableInfo.getIdField().getColumnName());
+			sb.append(") DO UPDATE SET ");
+		} else {
+			sb.append(" ON DUPLICATE KEY UPDATE ");
+		}
+		boolean first = true;
+		for (final FieldType fieldType : fieldTypes) {
+			if (fieldType.isId() || Entity.COLUMN_NAME_CREATED_AT.equals(fieldType.getColumnName())) {
+				continue;
+			}
+			sb.append(first ? "" : ", ");
+			databaseType.appendEscapedEntityName(sb, fieldType.getColumnName());
+			if (onConflict) {
+				sb.append(" = EXCLUDED.");
+				databaseType.appendEscapedEntityName(sb, fieldType.getColumnName());
+			} else {
+				sb.append(" = VALUES(");
+				databaseType.appendEscapedEntityName(sb, fieldType.getColumnName());
+				sb.append(')');
+			}
+			first = false;
+		}
+		return !first ? new NativeUpsert<E>(sb.toString(), fieldTypes.toArray(new FieldType[fieldTypes.size()])) : null;
+	}
+
+	public boolean upsert(final ConnectionSource connectionSource, final E entity) throws SQLException {
+		final Object[] args = new Object[fieldTypes.length];
+		for (int i = 0; i < fieldTypes.length; i++) {
+			args[i] = fieldTypes[i].extractJavaFieldToSqlArgValue(entity);
+		}
+		final DatabaseConnection connection = connectionSource.getReadWriteConnection();
+		try {
+			return connection.update(statement, args, fieldTypes) > 0;
+		} finally {
+			connectionSource.releaseConnection(connection);
+		}
+	}
+
+	public String getStatement() {
+		return statement;
+	}
+}
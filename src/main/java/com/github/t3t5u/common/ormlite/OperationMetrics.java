@@ -0,0 +1,100 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class OperationMetrics {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong errorCount = new AtomicLong();
+	private final AtomicLong rows = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	public void record(final long elapsedNanos, final long rows, final boolean error) {
+		final long nanos = Math.max(elapsedNanos, 0);
+		count.incrementAndGet();
+		if (error) {
+			errorCount.incrementAndGet();
+		}
+		if (rows > 0) {
+			this.rows.addAndGet(rows);
+		}
+		totalNanos.addAndGet(nanos);
+		long max = maxNanos.get();
+		while ((nanos > max) && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+		buckets.incrementAndGet(toBucket(nanos));
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+
+	public long getRows() {
+		return rows.get();
+	}
+
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	public long getMeanNanos() {
+		final long count = getCount();
+		return count > 0 ? getTotalNanos() / count : 0;
+	}
+
+	public long getPercentileNanos(final double percentile) {
+		if ((percentile < 0) || (percentile > 100)) {
+			throw new IllegalArgumentException();
+		}
+		final long[] counts = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		final long rank = Math.max((long) Math.ceil(total * percentile / 100), 1);
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(toUpperBound(i), getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	private static int toBucket(final long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return ((exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT) + subBucket;
+	}
+
+	private static long toUpperBound(final int bucket) {
+		if (bucket < SUB_BUCKET_COUNT) {
+			return bucket;
+		}
+		final int shift = (bucket / SUB_BUCKET_COUNT) - 1;
+		final long subBucket = bucket % SUB_BUCKET_COUNT;
+		return ((SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+	}
+}
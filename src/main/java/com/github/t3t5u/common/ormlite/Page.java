@@ -0,0 +1,28 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.github.t3t5u.common.database.Entity;
+
+public class Page<E extends Entity> {
+	private final List<E> entities;
+	private final PageCursor nextCursor;
+
+	public Page(final List<E> entities, final PageCursor nextCursor) {
+		this.entities = entities != null ? entities : Collections.<E> emptyList();
+		this.nextCursor = nextCursor;
+	}
+
+	public List<E> getEntities() {
+		return entities;
+	}
+
+	public PageCursor getNextCursor() {
+		return nextCursor;
+	}
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+}
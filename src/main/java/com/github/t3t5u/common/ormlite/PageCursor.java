@@ -0,0 +1,20 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.Arrays;
+
+public class PageCursor {
+	private final Object[] values;
+
+	public PageCursor(final Object... values) {
+		this.values = values != null ? values.clone() : new Object[0];
+	}
+
+	public Object[] getValues() {
+		return values.clone();
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(values);
+	}
+}
@@ -1,5 +1,6 @@
 package com.github.t3t5u.common.ormlite;
 
+import java.util.Arrays;
 import java.util.Date;
 
 import com.github.t3t5u.common.database.Entity;
@@ -23,4 +24,29 @@ public class RawOrder<E extends Entity> implements Order<E> {
 	protected QueryBuilder<E, Long> orderBy(final QueryBuilder<E, Long> queryBuilder, final String rawSql, final ArgumentHolder[] args, final Date now) {
 		return queryBuilder.orderByRaw(rawSql, args);
 	}
+
+	public String getRawSql() {
+		return rawSql;
+	}
+
+	public ArgumentHolder[] getArgs() {
+		return args != null ? args.clone() : null;
+	}
+
+	@Override
+	public int hashCode() {
+		return (31 * (rawSql != null ? rawSql.hashCode() : 0)) + Arrays.hashCode(args);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if ((obj == null) || (getClass() != obj.getClass())) {
+			return false;
+		}
+		final RawOrder<?> other = (RawOrder<?>) obj;
+		return (rawSql != null ? rawSql.equals(other.rawSql) : other.rawSql == null) && Arrays.equals(args, other.args);
+	}
 }
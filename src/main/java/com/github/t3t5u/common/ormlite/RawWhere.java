@@ -0,0 +1,31 @@
+package com.github.t3t5u.common.ormlite;
+
+import com.j256.ormlite.stmt.ArgumentHolder;
+import com.j256.ormlite.stmt.StatementBuilder;
+
+public class RawWhere {
+	private final String rawSql;
+	private final ArgumentHolder[] args;
+
+	public RawWhere(final String rawSql, final ArgumentHolder... args) {
+		this.rawSql = rawSql;
+		this.args = args;
+	}
+
+	public <T extends StatementBuilder<?, ?>> T where(final T statementBuilder) {
+		return where(statementBuilder, rawSql, args);
+	}
+
+	protected <T extends StatementBuilder<?, ?>> T where(final T statementBuilder, final String rawSql, final ArgumentHolder[] args) {
+		statementBuilder.where().raw(rawSql, args);
+		return statementBuilder;
+	}
+
+	public String getRawSql() {
+		return rawSql;
+	}
+
+	public ArgumentHolder[] getArgs() {
+		return args;
+	}
+}
@@ -0,0 +1,103 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.github.t3t5u.common.database.Entity;
+import com.j256.ormlite.dao.Dao;
+
+public class ReplicaRouter<E extends Entity> {
+	private static final ThreadLocal<Map<String, Long>> LAST_WRITES = new ThreadLocal<Map<String, Long>>() {
+		@Override
+		protected Map<String, Long> initialValue() {
+			return new HashMap<String, Long>();
+		}
+	};
+	private final Dao<E, Long> primary;
+	private final List<Dao<E, Long>> replicas;
+	private final Strategy strategy;
+	private final long windowNanos;
+	private final AtomicInteger sequence = new AtomicInteger();
+	private final AtomicIntegerArray loads;
+
+	public ReplicaRouter(final Dao<E, Long> primary, final List<Dao<E, Long>> replicas, final Strategy strategy, final long readYourWritesWindowMillis) {
+		if ((primary == null) || (replicas == null) || replicas.isEmpty() || (strategy == null)) {
+			throw new IllegalArgumentException();
+		}
+		this.primary = primary;
+		this.replicas = new ArrayList<Dao<E, Long>>(replicas);
+		this.strategy = strategy;
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(readYourWritesWindowMillis, 0));
+		this.loads = new AtomicIntegerArray(replicas.size());
+	}
+
+	public Dao<E, Long> acquire(final String tableName) {
+		if (isRecentlyWritten(tableName)) {
+			return primary;
+		}
+		final int index = strategy == Strategy.LEAST_LOADED ? getLeastLoaded() : (sequence.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+		loads.incrementAndGet(index);
+		return replicas.get(index);
+	}
+
+	public void release(final Dao<E, Long> dao) {
+		for (int i = 0; i < replicas.size(); i++) {
+			if (replicas.get(i) == dao) {
+				loads.decrementAndGet(i);
+				return;
+			}
+		}
+	}
+
+	public Dao<E, Long> getPrimary() {
+		return primary;
+	}
+
+	public List<Dao<E, Long>> getReplicas() {
+		return replicas;
+	}
+
+	public Strategy getStrategy() {
+		return strategy;
+	}
+
+	public int getLoad(final int index) {
+		return loads.get(index);
+	}
+
+	public static void markWrite(final String tableName) {
+		LAST_WRITES.get().put(tableName, System.nanoTime());
+	}
+
+	private boolean isRecentlyWritten(final String tableName) {
+		if (windowNanos <= 0) {
+			return false;
+		}
+		final Long lastWrite = LAST_WRITES.get().get(tableName);
+		return (lastWrite != null) && (System.nanoTime() - lastWrite < windowNanos);
+	}
+
+	private int getLeastLoaded() {
+		final int offset = (sequence.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+		int result = offset;
+		int min = Integer.MAX_VALUE;
+		for (int i = 0; i < replicas.size(); i++) {
+			final int index = (offset + i) % replicas.size();
+			final int load = loads.get(index);
+			if (load < min) {
+				min = load;
+				result = index;
+			}
+		}
+		return result;
+	}
+
+	public enum Strategy {
+		ROUND_ROBIN, LEAST_LOADED
+	}
+}
@@ -0,0 +1,10 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.List;
+
+import com.github.t3t5u.common.database.Entity;
+import com.j256.ormlite.dao.Dao;
+
+public interface ReplicatedDatabase extends Database {
+	<E extends Entity> List<Dao<E, Long>> getReplicaDaos(Class<E> clazz);
+}
@@ -0,0 +1,202 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.lang.reflect.Field;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.j256.ormlite.stmt.ArgumentHolder;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.StatementBuilder;
+import com.j256.ormlite.stmt.StatementBuilder.StatementInfo;
+
+public class ResultCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ResultCache.class);
+	private static final Field TABLE_NAME = getTableNameField();
+	private static final ConcurrentMap<String, AtomicLong> VERSIONS = new ConcurrentHashMap<String, AtomicLong>();
+	private static final Map<QueryBuilder<?, ?>, Set<String>> TABLES = Collections.synchronizedMap(new WeakHashMap<QueryBuilder<?, ?>, Set<String>>());
+	private static volatile boolean registered;
+	private final LruCache<Object, CachedResult> cache;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	public ResultCache(final int maxSize) {
+		this.cache = new LruCache<Object, CachedResult>(maxSize);
+	}
+
+	public Object get(final Object key) {
+		final CachedResult cachedResult = cache.get(key);
+		if (cachedResult == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		if (!Arrays.equals(cachedResult.versions, getVersions(cachedResult.tables))) {
+			cache.remove(key);
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return cachedResult.value;
+	}
+
+	public void put(final Object key, final Object value, final String[] tables, final long[] versions) {
+		if (value != null) {
+			cache.put(key, new CachedResult(value, tables, versions));
+		}
+	}
+
+	public void clear() {
+		cache.clear();
+	}
+
+	public int size() {
+		return cache.size();
+	}
+
+	public int getMaxSize() {
+		return cache.getMaxSize();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public static Object toKey(final String name, final StatementInfo statementInfo) throws SQLException {
+		final List<ArgumentHolder> argList = statementInfo.getArgList();
+		final List<Object> key = new ArrayList<Object>(argList.size() + 2);
+		key.add(name);
+		key.add(statementInfo.getStatement());
+		for (final ArgumentHolder arg : argList) {
+			key.add(arg.getSqlArgValue());
+		}
+		return key;
+	}
+
+	public static String[] getTables(final QueryBuilder<?, ?> queryBuilder, final String tableName) {
+		final Set<String> tables = new LinkedHashSet<String>();
+		tables.add(tableName);
+		final Set<String> joinedTables = registered ? TABLES.get(queryBuilder) : null;
+		if (joinedTables != null) {
+			synchronized (joinedTables) {
+				tables.addAll(joinedTables);
+			}
+		}
+		return tables.toArray(new String[tables.size()]);
+	}
+
+	public static long[] getVersions(final String[] tables) {
+		final long[] versions = new long[tables.length];
+		for (int i = 0; i < tables.length; i++) {
+			versions[i] = getVersion(tables[i]);
+		}
+		return versions;
+	}
+
+	public static long getVersion(final String tableName) {
+		final AtomicLong version = VERSIONS.get(tableName);
+		return version != null ? version.get() : 0;
+	}
+
+	public static void incrementVersion(final String tableName) {
+		AtomicLong version = VERSIONS.get(tableName);
+		if (version == null) {
+			final AtomicLong newVersion = new AtomicLong();
+			version = VERSIONS.putIfAbsent(tableName, newVersion);
+			version = version != null ? version : newVersion;
+		}
+		version.incrementAndGet();
+	}
+
+	public static void register(final QueryBuilder<?, ?> queryBuilder, final String tableName) {
+		if ((queryBuilder != null) && (tableName != null)) {
+			if (!registered) {
+				registered = true;
+			}
+			addTables(queryBuilder, Collections.singleton(tableName));
+		}
+	}
+
+	public static void join(final QueryBuilder<?, ?> queryBuilder, final QueryBuilder<?, ?> joinedQueryBuilder) {
+		if ((queryBuilder == null) || (joinedQueryBuilder == null)) {
+			return;
+		}
+		final List<String> tables = new ArrayList<String>();
+		final String tableName = getTableName(joinedQueryBuilder);
+		if (tableName != null) {
+			tables.add(tableName);
+		}
+		final Set<String> joinedTables = registered ? TABLES.get(joinedQueryBuilder) : null;
+		if (joinedTables != null) {
+			synchronized (joinedTables) {
+				tables.addAll(joinedTables);
+			}
+		}
+		if (tables.isEmpty()) {
+			return;
+		}
+		if (!registered) {
+			registered = true;
+		}
+		addTables(queryBuilder, tables);
+	}
+
+	private static String getTableName(final StatementBuilder<?, ?> statementBuilder) {
+		try {
+			return TABLE_NAME != null ? (String) TABLE_NAME.get(statementBuilder) : null;
+		} catch (final Throwable t) {
+			LOGGER.info("getTableName", t);
+			return null;
+		}
+	}
+
+	private static Field getTableNameField() {
+		try {
+			final Field field = StatementBuilder.class.getDeclaredField("tableName");
+			field.setAccessible(true);
+			return field;
+		} catch (final Throwable t) {
+			LOGGER.info("getTableNameField", t);
+			return null;
+		}
+	}
+
+	private static void addTables(final QueryBuilder<?, ?> queryBuilder, final Collection<String> tableNames) {
+		synchronized (TABLES) {
+			Set<String> tables = TABLES.get(queryBuilder);
+			if (tables == null) {
+				tables = Collections.synchronizedSet(new LinkedHashSet<String>());
+				TABLES.put(queryBuilder, tables);
+			}
+			tables.addAll(tableNames);
+		}
+	}
+
+	private static final class CachedResult {
+		private final Object value;
+		private final String[] tables;
+		private final long[] versions;
+
+		private CachedResult(final Object value, final String[] tables, final long[] versions) {
+			this.value = value;
+			this.tables = tables;
+			this.versions = versions;
+		}
+	}
+}
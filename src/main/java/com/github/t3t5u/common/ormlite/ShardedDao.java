@@ -0,0 +1,314 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.t3t5u.common.database.Entity;
+import com.github.t3t5u.common.expression.Expression;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.stmt.DeleteBuilder;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.table.TableInfo;
+
+public class ShardedDao<E extends Entity> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardedDao.class);
+	private final List<AbstractDao<E>> shards;
+	private final ExecutorService executor;
+
+	public ShardedDao(final List<? extends AbstractDao<E>> shards, final ExecutorService executor) {
+		if ((shards == null) || shards.isEmpty() || (executor == null)) {
+			throw new IllegalArgumentException();
+		}
+		this.shards = Collections.unmodifiableList(new ArrayList<AbstractDao<E>>(shards));
+		this.executor = executor;
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<E> findAll(final Expression<Boolean> expression, final ColumnOrder<E>... orders) {
+		return findAll(expression, 0, orders);
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<E> findAll(final Expression<Boolean> expression, final long limit, final ColumnOrder<E>... orders) {
+		final List<List<E>> results = invokeAll("findAll", new ShardTask<E, List<E>>() {
+			@Override
+			public List<E> call(final AbstractDao<E> shard) throws Exception {
+				final QueryBuilder<E, Long> queryBuilder = shard.buildQuery(expression, toMergeOrders(shard, orders));
+				if (queryBuilder == null) {
+					throw new SQLException("buildQuery");
+				}
+				return shard.findAllOrThrow(limit > 0 ? queryBuilder.limit(limit) : queryBuilder);
+			}
+		});
+		if (results == null) {
+			return Collections.emptyList();
+		}
+		try {
+			return merge(results, toFieldTypes(orders), orders, limit);
+		} catch (final SQLException e) {
+			LOGGER.info("findAll", e);
+			return Collections.emptyList();
+		}
+	}
+
+	public long count() {
+		return sum("count", new ShardTask<E, Long>() {
+			@Override
+			public Long call(final AbstractDao<E> shard) throws SQLException {
+				return shard.countOrThrow();
+			}
+		});
+	}
+
+	public long count(final Expression<Boolean> expression) {
+		return sum("count", new ShardTask<E, Long>() {
+			@Override
+			public Long call(final AbstractDao<E> shard) throws SQLException {
+				final QueryBuilder<E, Long> queryBuilder = shard.buildQuery(expression);
+				if (queryBuilder == null) {
+					throw new SQLException("buildQuery");
+				}
+				return shard.countOrThrow(queryBuilder);
+			}
+		});
+	}
+
+	public long deleteAll() {
+		return sum("deleteAll", new ShardTask<E, Long>() {
+			@Override
+			public Long call(final AbstractDao<E> shard) throws SQLException {
+				return shard.deleteAllOrThrow();
+			}
+		});
+	}
+
+	public long deleteAll(final Expression<Boolean> expression) {
+		return sum("deleteAll", new ShardTask<E, Long>() {
+			@Override
+			public Long call(final AbstractDao<E> shard) throws SQLException {
+				final DeleteBuilder<E, Long> deleteBuilder = shard.buildDelete(expression);
+				if (deleteBuilder == null) {
+					throw new SQLException("buildDelete");
+				}
+				return shard.deleteAllOrThrow(deleteBuilder);
+			}
+		});
+	}
+
+	public List<AbstractDao<E>> getShards() {
+		return shards;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	private long sum(final String name, final ShardTask<E, Long> task) {
+		final List<Long> results = invokeAll(name, task);
+		if (results == null) {
+			return 0;
+		}
+		long result = 0;
+		for (final Long value : results) {
+			result += value;
+		}
+		return result;
+	}
+
+	private <T> List<T> invokeAll(final String name, final ShardTask<E, T> task) {
+		final List<Future<T>> futures = new ArrayList<Future<T>>(shards.size());
+		for (final AbstractDao<E> shard : shards) {
+			futures.add(executor.submit(new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					return task.call(shard);
+				}
+			}));
+		}
+		final List<T> results = new ArrayList<T>(futures.size());
+		try {
+			for (final Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.info(name, e);
+			cancelAll(futures);
+			return null;
+		} catch (final ExecutionException e) {
+			LOGGER.info(name + ": shard " + results.size() + " failed", e.getCause());
+			cancelAll(futures);
+			return null;
+		}
+	}
+
+	private FieldType[] toFieldTypes(final ColumnOrder<E>[] orders) {
+		if ((orders == null) || (orders.length == 0)) {
+			return null;
+		}
+		final TableInfo<E, Long> tableInfo = shards.get(0).getTableInfo();
+		final FieldType[] fieldTypes = new FieldType[orders.length];
+		for (int i = 0; i < orders.length; i++) {
+			fieldTypes[i] = tableInfo.getFieldTypeByColumnName(orders[i].getColumnName());
+		}
+		return fieldTypes;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <E extends Entity> Order<E>[] toMergeOrders(final AbstractDao<E> shard, final ColumnOrder<E>[] orders) {
+		if ((orders == null) || (orders.length == 0)) {
+			return orders;
+		}
+		final DatabaseType databaseType = shard.getDao().getConnectionSource().getDatabaseType();
+		final Order<E>[] mergeOrders = new Order[orders.length];
+		for (int i = 0; i < orders.length; i++) {
+			mergeOrders[i] = new NullsFirstOrder<E>(databaseType, orders[i]);
+		}
+		return mergeOrders;
+	}
+
+	private static <T> void cancelAll(final List<Future<T>> futures) {
+		for (final Future<T> future : futures) {
+			future.cancel(true);
+		}
+	}
+
+	private static <E extends Entity> List<E> merge(final List<List<E>> results, final FieldType[] fieldTypes, final ColumnOrder<E>[] orders, final long limit) throws SQLException {
+		int size = 0;
+		for (final List<E> result : results) {
+			size += result.size();
+		}
+		final int max = limit > 0 ? (int) Math.min(limit, size) : size;
+		final List<E> merged = new ArrayList<E>(max);
+		if (fieldTypes == null) {
+			for (final List<E> result : results) {
+				for (final E entity : result) {
+					if (merged.size() >= max) {
+						return merged;
+					}
+					merged.add(entity);
+				}
+			}
+			return merged;
+		}
+		final CursorComparator<E> comparator = new CursorComparator<E>(orders);
+		final PriorityQueue<Cursor<E>> queue = new PriorityQueue<Cursor<E>>(Math.max(results.size(), 1), comparator);
+		for (final List<E> result : results) {
+			final Cursor<E> cursor = new Cursor<E>(result, fieldTypes);
+			if (cursor.next()) {
+				queue.add(cursor);
+			}
+		}
+		while ((merged.size() < max) && !queue.isEmpty()) {
+			final Cursor<E> cursor = queue.poll();
+			merged.add(cursor.entity);
+			if (cursor.next()) {
+				if (comparator.compareKeys(cursor.previousKeys, cursor.keys) > 0) {
+					throw new SQLException("shard order disagrees with merge order: " + cursor.entity);
+				}
+				queue.add(cursor);
+			}
+		}
+		return merged;
+	}
+
+	private interface ShardTask<E extends Entity, T> {
+		T call(AbstractDao<E> shard) throws Exception;
+	}
+
+	private static final class NullsFirstOrder<E extends Entity> implements Order<E> {
+		private final DatabaseType databaseType;
+		private final ColumnOrder<E> order;
+
+		private NullsFirstOrder(final DatabaseType databaseType, final ColumnOrder<E> order) {
+			this.databaseType = databaseType;
+			this.order = order;
+		}
+
+		@Override
+		public QueryBuilder<E, Long> orderBy(final QueryBuilder<E, Long> queryBuilder, final Date now) {
+			final StringBuilder sb = new StringBuilder("CASE WHEN ");
+			databaseType.appendEscapedEntityName(sb, order.getColumnName());
+			sb.append(" IS NULL THEN 0 ELSE 1 END").append(order.isAscending() ? " ASC" : " DESC");
+			return order.orderBy(queryBuilder.orderByRaw(sb.toString()), now);
+		}
+	}
+
+	private static final class Cursor<E> {
+		private final List<E> entities;
+		private final FieldType[] fieldTypes;
+		private Object[] keys;
+		private Object[] previousKeys;
+		private int index;
+		private E entity;
+
+		private Cursor(final List<E> entities, final FieldType[] fieldTypes) {
+			this.entities = entities;
+			this.fieldTypes = fieldTypes;
+		}
+
+		private boolean next() throws SQLException {
+			if (index >= entities.size()) {
+				return false;
+			}
+			entity = entities.get(index++);
+			previousKeys = keys;
+			keys = new Object[fieldTypes.length];
+			for (int i = 0; i < fieldTypes.length; i++) {
+				keys[i] = fieldTypes[i].extractJavaFieldValue(entity);
+			}
+			return true;
+		}
+	}
+
+	private static final class CursorComparator<E extends Entity> implements Comparator<Cursor<E>> {
+		private final ColumnOrder<E>[] orders;
+
+		private CursorComparator(final ColumnOrder<E>[] orders) {
+			this.orders = orders;
+		}
+
+		@Override
+		public int compare(final Cursor<E> o1, final Cursor<E> o2) {
+			return compareKeys(o1.keys, o2.keys);
+		}
+
+		private int compareKeys(final Object[] keys1, final Object[] keys2) {
+			for (int i = 0; i < orders.length; i++) {
+				final int result = compareKey(keys1[i], keys2[i]);
+				if (result != 0) {
+					return orders[i].isAscending() ? result : -result;
+				}
+			}
+			return 0;
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private static int compareKey(final Object key1, final Object key2) {
+			if (key1 == key2) {
+				return 0;
+			}
+			if (key1 == null) {
+				return -1;
+			}
+			if (key2 == null) {
+				return 1;
+			}
+			return ((Comparable) key1).compareTo(key2);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SingleFlight<K, V> {
+	private final ConcurrentMap<K, FutureTask<V>> calls = new ConcurrentHashMap<K, FutureTask<V>>();
+	private final AtomicLong callCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	@SuppressWarnings("unchecked")
+	public V execute(final K key, final Callable<? extends V> callable) throws Exception {
+		callCount.incrementAndGet();
+		final FutureTask<V> call = calls.get(key);
+		if (call != null) {
+			coalescedCount.incrementAndGet();
+			return get(call);
+		}
+		final FutureTask<V> newCall = new FutureTask<V>((Callable<V>) callable);
+		final FutureTask<V> existingCall = calls.putIfAbsent(key, newCall);
+		if (existingCall != null) {
+			coalescedCount.incrementAndGet();
+			return get(existingCall);
+		}
+		try {
+			newCall.run();
+		} finally {
+			calls.remove(key, newCall);
+		}
+		return get(newCall);
+	}
+
+	public int getInFlightCount() {
+		return calls.size();
+	}
+
+	public long getCallCount() {
+		return callCount.get();
+	}
+
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	private static <V> V get(final FutureTask<V> call) throws Exception {
+		try {
+			return call.get();
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+}
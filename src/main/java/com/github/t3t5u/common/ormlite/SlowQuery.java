@@ -0,0 +1,56 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.Arrays;
+
+public class SlowQuery {
+	private final long timestamp;
+	private final Class<?> clazz;
+	private final DaoOperation operation;
+	private final String statement;
+	private final Object[] args;
+	private final long rows;
+	private final long elapsedNanos;
+
+	public SlowQuery(final long timestamp, final Class<?> clazz, final DaoOperation operation, final String statement, final Object[] args, final long rows, final long elapsedNanos) {
+		this.timestamp = timestamp;
+		this.clazz = clazz;
+		this.operation = operation;
+		this.statement = statement;
+		this.args = args != null ? args.clone() : null;
+		this.rows = rows;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public Class<?> getClazz() {
+		return clazz;
+	}
+
+	public DaoOperation getOperation() {
+		return operation;
+	}
+
+	public String getStatement() {
+		return statement;
+	}
+
+	public Object[] getArgs() {
+		return args != null ? args.clone() : null;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return (clazz != null ? clazz.getName() : null) + " " + operation + " " + (elapsedNanos / 1000000) + "ms, rows: " + rows + ", statement: " + statement + ", args: " + Arrays.toString(args);
+	}
+}
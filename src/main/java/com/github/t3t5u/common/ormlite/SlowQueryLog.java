@@ -0,0 +1,68 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SlowQueryLog {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLog.class);
+	private final long thresholdNanos;
+	private final AtomicReferenceArray<SlowQuery> buffer;
+	private final AtomicLong sequence = new AtomicLong();
+
+	public SlowQueryLog(final long thresholdMillis, final int capacity) {
+		if ((thresholdMillis < 0) || (capacity <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.buffer = new AtomicReferenceArray<SlowQuery>(capacity);
+	}
+
+	public boolean isSlow(final long elapsedNanos) {
+		return elapsedNanos >= thresholdNanos;
+	}
+
+	public void add(final SlowQuery slowQuery) {
+		if (slowQuery == null) {
+			return;
+		}
+		buffer.set((int) (sequence.getAndIncrement() % buffer.length()), slowQuery);
+		LOGGER.warn("slow query: {}", slowQuery);
+	}
+
+	public List<SlowQuery> getSlowQueries() {
+		final long end = sequence.get();
+		final long begin = Math.max(end - buffer.length(), 0);
+		final List<SlowQuery> result = new ArrayList<SlowQuery>((int) (end - begin));
+		for (long i = begin; i < end; i++) {
+			final SlowQuery slowQuery = buffer.get((int) (i % buffer.length()));
+			if (slowQuery != null) {
+				result.add(slowQuery);
+			}
+		}
+		return result;
+	}
+
+	public long getCount() {
+		return sequence.get();
+	}
+
+	public long getThresholdNanos() {
+		return thresholdNanos;
+	}
+
+	public int getCapacity() {
+		return buffer.length();
+	}
+
+	public void clear() {
+		for (int i = 0; i < buffer.length(); i++) {
+			buffer.set(i, null);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.field.DatabaseFieldConfig;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTableConfig;
+import com.j256.ormlite.table.DatabaseTableConfigLoader;
+
+public class TableConfigRegistry {
+	private static final Logger LOGGER = LoggerFactory.getLogger(TableConfigRegistry.class);
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	private static final String FINGERPRINT_PREFIX = "# fingerprint ";
+
+	private TableConfigRegistry() {
+	}
+
+	public static List<DatabaseTableConfig<?>> register(final ConnectionSource connectionSource, final Collection<? extends Class<?>> classes, final File file, final ExecutorService executorService) throws SQLException {
+		List<DatabaseTableConfig<?>> configs = null;
+		Map<String, String> fingerprints = null;
+		if ((file != null) && file.isFile()) {
+			try {
+				configs = load(file);
+				fingerprints = loadFingerprints(file);
+			} catch (final SQLException e) {
+				LOGGER.info("register", e);
+			}
+		}
+		if ((configs == null) || (fingerprints == null) || !covers(configs, fingerprints, classes)) {
+			configs = build(connectionSource, classes, executorService);
+			if (file != null) {
+				write(file, configs);
+			}
+		}
+		DaoManager.addCachedDatabaseConfigs(configs);
+		return configs;
+	}
+
+	public static List<DatabaseTableConfig<?>> build(final ConnectionSource connectionSource, final Collection<? extends Class<?>> classes, final ExecutorService executorService) throws SQLException {
+		final List<Callable<DatabaseTableConfig<?>>> tasks = new ArrayList<Callable<DatabaseTableConfig<?>>>(classes.size());
+		for (final Class<?> clazz : classes) {
+			tasks.add(new Callable<DatabaseTableConfig<?>>() {
+				@Override
+				public DatabaseTableConfig<?> call() throws SQLException {
+					return fromClass(connectionSource.getDatabaseType(), clazz);
+				}
+			});
+		}
+		return invokeAll(executorService, tasks);
+	}
+
+	public static List<DatabaseTableConfig<?>> load(final File file) throws SQLException {
+		try {
+			final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+			try {
+				return DatabaseTableConfigLoader.loadDatabaseConfigFromReader(reader);
+			} finally {
+				reader.close();
+			}
+		} catch (final IOException e) {
+			throw new SQLException(file.getPath(), e);
+		}
+	}
+
+	public static void write(final File file, final Collection<DatabaseTableConfig<?>> configs) throws SQLException {
+		try {
+			final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CHARSET));
+			try {
+				for (final DatabaseTableConfig<?> config : configs) {
+					writer.write(FINGERPRINT_PREFIX + config.getDataClass().getName() + " " + fingerprint(config.getDataClass()));
+					writer.newLine();
+				}
+				for (final DatabaseTableConfig<?> config : configs) {
+					DatabaseTableConfigLoader.write(writer, config);
+				}
+			} finally {
+				writer.close();
+			}
+		} catch (final IOException e) {
+			throw new SQLException(file.getPath(), e);
+		}
+	}
+
+	public static Map<String, String> loadFingerprints(final File file) throws SQLException {
+		try {
+			final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+			try {
+				final Map<String, String> fingerprints = new HashMap<String, String>();
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					if (!line.startsWith(FINGERPRINT_PREFIX)) {
+						continue;
+					}
+					final String[] values = line.substring(FINGERPRINT_PREFIX.length()).split(" ");
+					if (values.length == 2) {
+						fingerprints.put(values[0], values[1]);
+					}
+				}
+				return fingerprints;
+			} finally {
+				reader.close();
+			}
+		} catch (final IOException e) {
+			throw new SQLException(file.getPath(), e);
+		}
+	}
+
+	public static String fingerprint(final Class<?> clazz) {
+		final CRC32 crc = new CRC32();
+		final byte[] buffer = new byte[4096];
+		for (Class<?> c = clazz; (c != null) && (c.getClassLoader() != null); c = c.getSuperclass()) {
+			final InputStream in = c.getResourceAsStream('/' + c.getName().replace('.', '/') + ".class");
+			if (in == null) {
+				continue;
+			}
+			try {
+				try {
+					for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+						crc.update(buffer, 0, n);
+					}
+				} finally {
+					in.close();
+				}
+			} catch (final IOException e) {
+				LOGGER.info("fingerprint", e);
+				return "";
+			}
+		}
+		return Long.toHexString(crc.getValue());
+	}
+
+	public static void warmUp(final Collection<? extends AbstractDao<?>> daos, final ExecutorService executorService) throws SQLException {
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(daos.size());
+		for (final AbstractDao<?> dao : daos) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws SQLException {
+					dao.warmUp();
+					return null;
+				}
+			});
+		}
+		invokeAll(executorService, tasks);
+	}
+
+	private static <T> DatabaseTableConfig<T> fromClass(final DatabaseType databaseType, final Class<T> clazz) throws SQLException {
+		final String tableName = DatabaseTableConfig.extractTableName(clazz);
+		final List<DatabaseFieldConfig> fieldConfigs = new ArrayList<DatabaseFieldConfig>();
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+			for (final Field field : c.getDeclaredFields()) {
+				final DatabaseFieldConfig fieldConfig = DatabaseFieldConfig.fromField(databaseType, tableName, field);
+				if (fieldConfig != null) {
+					fieldConfigs.add(fieldConfig);
+				}
+			}
+		}
+		return new DatabaseTableConfig<T>(clazz, tableName, fieldConfigs);
+	}
+
+	private static boolean covers(final List<DatabaseTableConfig<?>> configs, final Map<String, String> fingerprints, final Collection<? extends Class<?>> classes) {
+		final Set<Class<?>> loaded = new HashSet<Class<?>>();
+		for (final DatabaseTableConfig<?> config : configs) {
+			if ((config.getFieldConfigs() != null) && !config.getFieldConfigs().isEmpty()) {
+				loaded.add(config.getDataClass());
+			}
+		}
+		if (!loaded.containsAll(classes)) {
+			LOGGER.info("covers: missing table configs, rebuilding");
+			return false;
+		}
+		for (final Class<?> clazz : classes) {
+			if (!fingerprint(clazz).equals(fingerprints.get(clazz.getName()))) {
+				LOGGER.info("covers: stale table config for {}, rebuilding", clazz.getName());
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static <T> List<T> invokeAll(final ExecutorService executorService, final List<Callable<T>> tasks) throws SQLException {
+		final List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+		try {
+			for (final Callable<T> task : tasks) {
+				futures.add(executorService.submit(task));
+			}
+			final List<T> result = new ArrayList<T>(futures.size());
+			for (final Future<T> future : futures) {
+				result.add(future.get());
+			}
+			return result;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException(e);
+		} catch (final ExecutionException e) {
+			throw e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
+		} finally {
+			for (final Future<T> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+}
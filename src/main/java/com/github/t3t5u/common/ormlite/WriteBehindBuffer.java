@@ -0,0 +1,312 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.t3t5u.common.database.Entity;
+
+public class WriteBehindBuffer<E extends Entity> implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindBuffer.class);
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+	private static final int DEFAULT_MAX_RETRIES = 3;
+	private static final Set<WriteBehindBuffer<?>> BUFFERS = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<WriteBehindBuffer<?>, Boolean>()));
+	private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, "WriteBehindBuffer-" + SEQUENCE.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY);
+	private static final ExecutorService FLUSH_EXECUTOR = Executors.newCachedThreadPool(THREAD_FACTORY);
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				final List<WriteBehindBuffer<?>> buffers;
+				synchronized (BUFFERS) {
+					buffers = new ArrayList<WriteBehindBuffer<?>>(BUFFERS);
+				}
+				for (final WriteBehindBuffer<?> buffer : buffers) {
+					buffer.flushQuietly();
+				}
+			}
+		}, "WriteBehindBuffer-shutdown"));
+	}
+	private final AbstractDao<E> dao;
+	private final int flushSize;
+	private final int capacity;
+	private final int maxRetries;
+	private final Executor executor;
+	private Map<Object, E> pending = new LinkedHashMap<Object, E>();
+	private final Map<Object, Integer> retries = new HashMap<Object, Integer>();
+	private boolean closed;
+	private final Object pendingLock = new Object();
+	private final Object flushLock = new Object();
+	private final ScheduledFuture<?> scheduledFlush;
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private final AtomicLong writeCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong failureCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			flushScheduled.set(false);
+			flushQuietly();
+		}
+	};
+	private final Runnable dispatchTask = new Runnable() {
+		@Override
+		public void run() {
+			dispatch();
+		}
+	};
+
+	public WriteBehindBuffer(final AbstractDao<E> dao, final int flushSize, final int capacity, final long flushIntervalMillis) {
+		this(dao, flushSize, capacity, flushIntervalMillis, DEFAULT_MAX_RETRIES, null);
+	}
+
+	public WriteBehindBuffer(final AbstractDao<E> dao, final int flushSize, final int capacity, final long flushIntervalMillis, final int maxRetries, final Executor executor) {
+		if ((dao == null) || (flushSize <= 0) || (capacity < flushSize) || (maxRetries < 0)) {
+			throw new IllegalArgumentException();
+		}
+		this.dao = dao;
+		this.flushSize = flushSize;
+		this.capacity = capacity;
+		this.maxRetries = maxRetries;
+		this.executor = executor != null ? executor : FLUSH_EXECUTOR;
+		this.scheduledFlush = flushIntervalMillis > 0 ? SCHEDULER.scheduleWithFixedDelay(dispatchTask, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS) : null;
+		BUFFERS.add(this);
+	}
+
+	public boolean write(final E entity) {
+		if (entity == null) {
+			return false;
+		}
+		final Object key = toKey(entity);
+		int size = offer(key, entity);
+		if (size < 0) {
+			flush();
+			size = offer(key, entity);
+		}
+		if (size < 0) {
+			rejectedCount.incrementAndGet();
+			LOGGER.warn("write: the buffer is full ({} entities)", capacity);
+			return false;
+		}
+		if (size >= flushSize) {
+			dispatch();
+		}
+		return true;
+	}
+
+	public int flush() {
+		synchronized (flushLock) {
+			final Map<Object, E> entities;
+			synchronized (pendingLock) {
+				if (pending.isEmpty()) {
+					return 0;
+				}
+				entities = pending;
+				pending = new LinkedHashMap<Object, E>();
+			}
+			final List<Object> keys = new ArrayList<Object>(entities.keySet());
+			final long[] counts = dao.insertOrUpdateAll(new ArrayList<E>(entities.values()));
+			flushCount.incrementAndGet();
+			final int batchSize = Math.max(dao.getBatchSize(), 1);
+			final Map<Object, E> failed = new LinkedHashMap<Object, E>();
+			long result = 0;
+			for (int i = 0; i * batchSize < keys.size(); i++) {
+				final List<Object> chunk = keys.subList(i * batchSize, Math.min((i + 1) * batchSize, keys.size()));
+				final long count = i < counts.length ? counts[i] : 0;
+				if (count >= chunk.size()) {
+					result += count;
+					continue;
+				}
+				for (final Object key : chunk) {
+					final E entity = entities.get(key);
+					if (dao.insertOrUpdate(entity)) {
+						result++;
+					} else {
+						failed.put(key, entity);
+					}
+				}
+			}
+			final int dropped = settle(entities.keySet(), failed);
+			if (!failed.isEmpty()) {
+				failureCount.addAndGet(failed.size());
+				LOGGER.warn("flush: {} of {} entities were not written, {} of them were dropped after {} retries", failed.size(), entities.size(), dropped, maxRetries);
+			}
+			return (int) result;
+		}
+	}
+
+	@Override
+	public void close() {
+		synchronized (pendingLock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+		}
+		BUFFERS.remove(this);
+		flush();
+	}
+
+	public int size() {
+		synchronized (pendingLock) {
+			return pending.size();
+		}
+	}
+
+	public int getFlushSize() {
+		return flushSize;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public boolean isClosed() {
+		synchronized (pendingLock) {
+			return closed;
+		}
+	}
+
+	public long getWriteCount() {
+		return writeCount.get();
+	}
+
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+	public long getFailureCount() {
+		return failureCount.get();
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	private int offer(final Object key, final E entity) {
+		synchronized (pendingLock) {
+			if (closed) {
+				throw new IllegalStateException("closed");
+			}
+			if ((pending.size() >= capacity) && !pending.containsKey(key)) {
+				return -1;
+			}
+			writeCount.incrementAndGet();
+			if (pending.put(key, entity) != null) {
+				coalescedCount.incrementAndGet();
+			}
+			retries.remove(key);
+			return pending.size();
+		}
+	}
+
+	private int settle(final Set<Object> keys, final Map<Object, E> failed) {
+		int dropped = 0;
+		synchronized (pendingLock) {
+			if (!retries.isEmpty()) {
+				for (final Object key : keys) {
+					if (!failed.containsKey(key)) {
+						retries.remove(key);
+					}
+				}
+			}
+			final Map<Object, E> requeued = new LinkedHashMap<Object, E>();
+			for (final Map.Entry<Object, E> entry : failed.entrySet()) {
+				if (pending.containsKey(entry.getKey())) {
+					continue;
+				}
+				final Integer count = retries.get(entry.getKey());
+				final int retry = count != null ? count + 1 : 1;
+				if (retry > maxRetries) {
+					retries.remove(entry.getKey());
+					dropped++;
+					continue;
+				}
+				retries.put(entry.getKey(), retry);
+				requeued.put(entry.getKey(), entry.getValue());
+			}
+			if (!requeued.isEmpty()) {
+				requeued.putAll(pending);
+				pending = requeued;
+			}
+		}
+		droppedCount.addAndGet(dropped);
+		return dropped;
+	}
+
+	private void dispatch() {
+		if (!flushScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			executor.execute(flushTask);
+		} catch (final RejectedExecutionException e) {
+			flushScheduled.set(false);
+			LOGGER.warn("dispatch", e);
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (final Throwable t) {
+			LOGGER.warn("flush", t);
+		}
+	}
+
+	private Object toKey(final E entity) {
+		try {
+			final Long id = dao.getDao().extractId(entity);
+			return (id != null) && (id != 0) ? id : new Object();
+		} catch (final SQLException e) {
+			return new Object();
+		}
+	}
+}
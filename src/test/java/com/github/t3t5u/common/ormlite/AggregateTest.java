@@ -0,0 +1,67 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AggregateTest {
+	private static final double DELTA = 1e-9;
+	private TestDatabase database;
+	private TestItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new TestItemDao(database);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void aggregatesOnTheServer() {
+		dao.insert(new TestItem("a", 1));
+		dao.insert(new TestItem("a", 2));
+		dao.insert(new TestItem("b", 6));
+		assertEquals(9, dao.sum("qty"), DELTA);
+		assertEquals(3, dao.avg("qty"), DELTA);
+		assertEquals(1, dao.min("qty"), DELTA);
+		assertEquals(6, dao.max("qty"), DELTA);
+	}
+
+	@Test
+	public void emptyTableHasNoMinMaxOrAverage() {
+		assertEquals(0, dao.sum("qty"), DELTA);
+		assertTrue(Double.isNaN(dao.avg("qty")));
+		assertTrue(Double.isNaN(dao.min("qty")));
+		assertTrue(Double.isNaN(dao.max("qty")));
+	}
+
+	@Test
+	public void countsRowsPerGroup() {
+		dao.insert(new TestItem("a", 1));
+		dao.insert(new TestItem("b", 2));
+		dao.insert(new TestItem("a", 3));
+		final Map<String, Long> counts = dao.groupByCount("name");
+		assertEquals(2, counts.size());
+		assertEquals(Long.valueOf(2), counts.get("a"));
+		assertEquals(Long.valueOf(1), counts.get("b"));
+	}
+
+	@Test
+	public void unknownColumnReturnsDefaults() {
+		dao.insert(new TestItem("a", 1));
+		assertEquals(0, dao.sum("missing"), DELTA);
+		assertTrue(Double.isNaN(dao.avg("missing")));
+		assertTrue(Double.isNaN(dao.min("missing")));
+		assertTrue(Double.isNaN(dao.max("missing")));
+		assertTrue(dao.groupByCount("missing").isEmpty());
+	}
+}
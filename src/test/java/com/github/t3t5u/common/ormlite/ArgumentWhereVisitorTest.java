@@ -0,0 +1,112 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.dao.BaseDaoImpl;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.field.SqlType;
+import com.j256.ormlite.stmt.ArgumentHolder;
+import com.j256.ormlite.table.TableInfo;
+
+public class ArgumentWhereVisitorTest {
+	private final ArgumentWhereVisitor visitor = new ArgumentWhereVisitor();
+	private TestDatabase database;
+	private Dao<TestItem, Long> dao;
+	private TableInfo<TestItem, Long> tableInfo;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = database.getDao(TestItem.class);
+		tableInfo = ((BaseDaoImpl<TestItem, Long>) dao).getTableInfo();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void liftsComparisonOperands() throws SQLException {
+		final RawWhere rawWhere = visitor.toRawWhere("(`qty` = 5) AND (`name` = 'it''s')", tableInfo);
+		assertEquals("(`qty` = ?) AND (`name` = ?)", rawWhere.getRawSql());
+		assertArgs(rawWhere, 5, "it's");
+		assertEquals(SqlType.INTEGER, rawWhere.getArgs()[0].getSqlType());
+		assertEquals(SqlType.STRING, rawWhere.getArgs()[1].getSqlType());
+	}
+
+	@Test
+	public void liftsInBetweenLikeAndReversedOperands() throws SQLException {
+		assertLifted("qty IN (1, 2, 3)", "qty IN (?, ?, ?)", 1, 2, 3);
+		assertLifted("qty NOT BETWEEN 1 AND 3 OR name LIKE 'a%'", "qty NOT BETWEEN ? AND ? OR name LIKE ?", 1, 3, "a%");
+		assertLifted("5 < qty", "? < qty", 5);
+		assertLifted("test_item.qty >= 5", "test_item.qty >= ?", 5);
+	}
+
+	@Test
+	public void leavesFunctionAndTypeArgumentsInline() throws SQLException {
+		assertUnchanged("CAST(qty AS DECIMAL(10,2)) > 5");
+		assertUnchanged("SUBSTR(name, 1, 3) = 'ABC'");
+		assertUnchanged("qty = 0x1F");
+		assertUnchanged("qty = 5 * 2");
+		assertUnchanged("qty = -5");
+	}
+
+	@Test
+	public void leavesLiteralsInlineWhenTheColumnTypeDoesNotMatch() throws SQLException {
+		assertUnchanged("qty = '5'");
+		assertUnchanged("qty = 2.5");
+		assertUnchanged("name = 5");
+		assertUnchanged("created_at > '2015-01-01 00:00:00'");
+		assertUnchanged("other.qty = 5");
+		assertUnchanged("unknown = 5");
+	}
+
+	@Test
+	public void leavesLiteralsInlineWithoutTableInfo() throws SQLException {
+		assertEquals("qty = 5", visitor.toRawWhere("qty = 5", null).getRawSql());
+	}
+
+	@Test
+	public void queriesWithLiftedAndInlineLiterals() throws SQLException {
+		final TestItemDao itemDao = new TestItemDao(database);
+		itemDao.insert(new TestItem("ABCDEF", 5));
+		itemDao.insert(new TestItem("ABXDEF", 7));
+		itemDao.insert(new TestItem("ABCXYZ", 31));
+		assertEquals(1, query("SUBSTR(name, 1, 3) = 'ABC' AND qty = 5").size());
+		assertEquals(2, query("CAST(qty AS DECIMAL(10,2)) > 5").size());
+		assertEquals(1, query("qty = 0x1F").size());
+		assertEquals(2, query("qty IN (5, 7) AND name LIKE 'AB%'").size());
+	}
+
+	private List<TestItem> query(final String where) throws SQLException {
+		return visitor.toRawWhere(where, tableInfo).where(dao.queryBuilder()).query();
+	}
+
+	private void assertLifted(final String where, final String expected, final Object... values) throws SQLException {
+		final RawWhere rawWhere = visitor.toRawWhere(where, tableInfo);
+		assertEquals(expected, rawWhere.getRawSql());
+		assertArgs(rawWhere, values);
+	}
+
+	private void assertUnchanged(final String where) throws SQLException {
+		assertLifted(where, where);
+	}
+
+	private static void assertArgs(final RawWhere rawWhere, final Object... values) throws SQLException {
+		final ArgumentHolder[] args = rawWhere.getArgs();
+		final Object[] actual = new Object[args.length];
+		for (int i = 0; i < args.length; i++) {
+			actual[i] = args[i].getSqlArgValue();
+		}
+		assertArrayEquals(values, actual);
+	}
+}
@@ -0,0 +1,112 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncDaoTest {
+	private TestDatabase database;
+	private ExecutorService executorService;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		executorService = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executorService.shutdownNow();
+		database.close();
+	}
+
+	@Test
+	public void queuedCallsDoNotOccupyThreads() throws Exception {
+		final AsyncDao<TestItem> asyncDao = new AsyncDao<TestItem>(database, new TestItemDao(database), executorService, 2);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger started = new AtomicInteger();
+		final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(asyncDao.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws InterruptedException {
+					started.incrementAndGet();
+					release.await(10, TimeUnit.SECONDS);
+					return 1;
+				}
+			}));
+		}
+		while (started.get() < 2) {
+			Thread.sleep(1);
+		}
+		assertEquals(2, started.get());
+		assertEquals(0, asyncDao.getAvailablePermits());
+		assertEquals(8, asyncDao.getQueueSize());
+		release.countDown();
+		int result = 0;
+		for (final Future<Integer> future : futures) {
+			result += future.get(10, TimeUnit.SECONDS);
+		}
+		assertEquals(10, result);
+	}
+
+	@Test(timeout = 10000)
+	public void rejectedQueuedCallFailsItsOwnFuture() throws Exception {
+		final ExecutorService rejectingExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+		try {
+			final AsyncDao<TestItem> asyncDao = new AsyncDao<TestItem>(database, new TestItemDao(database), rejectingExecutor, 1);
+			final CountDownLatch release = new CountDownLatch(1);
+			final Future<Integer> running = asyncDao.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws InterruptedException {
+					release.await(10, TimeUnit.SECONDS);
+					return 1;
+				}
+			});
+			final Future<Integer> queued = asyncDao.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					return 2;
+				}
+			});
+			assertEquals(1, asyncDao.getQueueSize());
+			release.countDown();
+			assertEquals(1, running.get().intValue());
+			try {
+				queued.get();
+				fail();
+			} catch (final ExecutionException e) {
+				assertTrue(e.getCause() instanceof RejectedExecutionException);
+			}
+			while (asyncDao.getAvailablePermits() != 1) {
+				Thread.sleep(1);
+			}
+		} finally {
+			rejectingExecutor.shutdownNow();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMismatchedMaxConcurrency() {
+		new AsyncDao<TestItem>(database, new TestItemDao(database), executorService, 2);
+		new AsyncDao<TestItem>(database, new TestItemDao(database), executorService, 3);
+	}
+}
@@ -0,0 +1,126 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.stmt.QueryBuilder;
+
+public class CascadeDeleteTest {
+	private TestDatabase database;
+	private TestParentDao parentDao;
+	private TestChildDao childDao;
+	private TestParent parent1;
+	private TestParent parent2;
+	private TestChild child1;
+	private TestChild child2;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		parentDao = new TestParentDao(database);
+		childDao = new TestChildDao(database);
+		parent1 = new TestParent("p1");
+		parent2 = new TestParent("p2");
+		parentDao.insert(parent1);
+		parentDao.insert(parent2);
+		child1 = new TestChild("c1", parent1);
+		child2 = new TestChild("c2", parent2);
+		childDao.insert(child1);
+		childDao.insert(child2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void deletesMatchingParentsAndTheirChildren() throws Exception {
+		final QueryBuilder<TestParent, Long> queryBuilder = parentDao.buildQuery();
+		queryBuilder.where().eq("name", "p1");
+		final String statement = queryBuilder.prepareStatementString();
+		assertEquals(1, parentDao.deleteAll(queryBuilder, true));
+		assertEquals(statement, queryBuilder.prepareStatementString());
+		assertNull(parentDao.find(parent1.getId()));
+		assertNotNull(parentDao.find(parent2.getId()));
+		assertNull(childDao.find(child1.getId()));
+		assertNotNull(childDao.find(child2.getId()));
+	}
+
+	@Test
+	public void deletesByCollectedIdsWithoutSubqueries() throws Exception {
+		final IdListParentDao idListParentDao = new IdListParentDao(database);
+		assertNotNull(childDao.find(child1.getId()));
+		final QueryBuilder<TestParent, Long> queryBuilder = idListParentDao.buildQuery();
+		queryBuilder.where().eq("name", "p1");
+		assertEquals(1, idListParentDao.deleteAll(queryBuilder, true));
+		assertNull(parentDao.find(parent1.getId()));
+		assertNotNull(parentDao.find(parent2.getId()));
+		assertNull(childDao.find(child1.getId()));
+		assertNotNull(childDao.find(child2.getId()));
+	}
+
+	@Test
+	public void evictsDeletedChildrenFromCache() {
+		assertNotNull(childDao.find(child1.getId()));
+		assertEquals(1, childDao.getEntityCache().size());
+		assertEquals(2, parentDao.deleteAll(true));
+		assertNull(childDao.find(child1.getId()));
+		assertEquals(0, childDao.count());
+	}
+
+	@Test
+	public void deleteJoinsCallerTransaction() {
+		parentDao.begin();
+		try {
+			assertEquals(2, parentDao.deleteAll(true));
+		} finally {
+			parentDao.rollback();
+		}
+		assertEquals(2, parentDao.count());
+		assertEquals(2, childDao.count());
+	}
+
+	private static final class TestParentDao extends AbstractCascadableDao<TestParent> {
+		private TestParentDao(final Database database) {
+			super(database, TestParent.class);
+		}
+
+		@Override
+		protected boolean isSetBasedDelete() {
+			return true;
+		}
+	}
+
+	private static final class IdListParentDao extends AbstractCascadableDao<TestParent> {
+		private IdListParentDao(final Database database) {
+			super(database, TestParent.class);
+		}
+
+		@Override
+		protected boolean isSetBasedDelete() {
+			return true;
+		}
+
+		@Override
+		protected boolean isSubqueryDelete() {
+			return false;
+		}
+	}
+
+	private static final class TestChildDao extends AbstractDao<TestChild> {
+		private TestChildDao(final Database database) {
+			super(database, TestChild.class);
+		}
+
+		@Override
+		protected int getEntityCacheSize() {
+			return 16;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CascadeLoadTest {
+	private TestDatabase database;
+	private TestParent parent1;
+	private TestParent parent2;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		final TestParentDao parentDao = new TestParentDao(database, 999);
+		final TestChildDao childDao = new TestChildDao(database);
+		parent1 = new TestParent("p1");
+		parent2 = new TestParent("p2");
+		parentDao.insert(parent1);
+		parentDao.insert(parent2);
+		childDao.insert(new TestChild("c1", parent1));
+		childDao.insert(new TestChild("c2", parent1));
+		childDao.insert(new TestChild("c3", parent2));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void loadsChildrenOfEveryParent() {
+		assertChildren(new TestParentDao(database, 999).findAll(true));
+	}
+
+	@Test
+	public void loadsChildrenInChunksOfMaxParameters() {
+		assertChildren(new TestParentDao(database, 1).findAll(true));
+	}
+
+	@Test
+	public void loadsForeignParentsOfChildren() {
+		final List<TestChild> children = new TestChildDao(database).findAll(true);
+		assertEquals(3, children.size());
+		assertEquals("p1", children.get(0).getParent().getName());
+		assertSame(children.get(0).getParent(), children.get(1).getParent());
+		assertEquals("p2", children.get(2).getParent().getName());
+	}
+
+	private static void assertChildren(final List<TestParent> parents) {
+		assertEquals(2, parents.size());
+		final List<TestChild> children = new ArrayList<TestChild>(parents.get(0).getChildren());
+		assertEquals(2, children.size());
+		assertEquals("c1", children.get(0).getName());
+		assertEquals("c2", children.get(1).getName());
+		assertSame(parents.get(0), children.get(0).getParent());
+		assertEquals(1, parents.get(1).getChildren().size());
+		assertEquals("c3", parents.get(1).getChildren().iterator().next().getName());
+	}
+
+	private static final class TestParentDao extends AbstractCascadableDao<TestParent> {
+		private final int maxParameters;
+
+		private TestParentDao(final Database database, final int maxParameters) {
+			super(database, TestParent.class);
+			this.maxParameters = maxParameters;
+		}
+
+		@Override
+		protected int getMaxCascadeDepth() {
+			return 2;
+		}
+
+		@Override
+		protected int getMaxParameters() {
+			return maxParameters;
+		}
+	}
+
+	private static final class TestChildDao extends AbstractCascadableDao<TestChild> {
+		private TestChildDao(final Database database) {
+			super(database, TestChild.class);
+		}
+
+		@Override
+		protected int getMaxCascadeDepth() {
+			return 1;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DaoHooksTest {
+	private TestDatabase database;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void hooksSeeSubclassConstructorArguments() {
+		final DaoMetrics metrics = new DaoMetrics();
+		final SlowQueryLog slowQueryLog = new SlowQueryLog(0, 10);
+		final ConfiguredDao dao = new ConfiguredDao(database, metrics, slowQueryLog, 16);
+		final TestItem item = new TestItem("a", 1);
+		dao.insert(item);
+		dao.find(item.getId());
+		assertEquals(1, metrics.get(TestItem.class, DaoOperation.INSERT).getCount());
+		assertEquals(1, metrics.get(TestItem.class, DaoOperation.FIND).getCount());
+		assertEquals(2, slowQueryLog.getCount());
+		assertNotNull(dao.getEntityCache());
+		assertSame(dao.getEntityCache(), dao.getEntityCache());
+	}
+
+	private static final class ConfiguredDao extends AbstractDao<TestItem> {
+		private final DaoListener listener;
+		private final SlowQueryLog slowQueryLog;
+		private final int entityCacheSize;
+
+		private ConfiguredDao(final Database database, final DaoListener listener, final SlowQueryLog slowQueryLog, final int entityCacheSize) {
+			super(database, TestItem.class);
+			this.listener = listener;
+			this.slowQueryLog = slowQueryLog;
+			this.entityCacheSize = entityCacheSize;
+		}
+
+		@Override
+		protected DaoListener getDaoListener() {
+			return listener;
+		}
+
+		@Override
+		protected SlowQueryLog getSlowQueryLog() {
+			return slowQueryLog;
+		}
+
+		@Override
+		protected int getEntityCacheSize() {
+			return entityCacheSize;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Constructor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.table.ObjectFactory;
+
+public class EntityCacheTest {
+	private TestDatabase database;
+	private CachedItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new CachedItemDao(database);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void updateInvalidatesCachedEntity() {
+		final TestItem item = new TestItem("a", 1);
+		dao.insert(item);
+		final TestItem cached = dao.find(item.getId());
+		assertSame(cached, dao.find(item.getId()));
+		item.setQty(2);
+		dao.update(item);
+		final TestItem found = dao.find(item.getId());
+		assertNotSame(cached, found);
+		assertEquals(2, found.getQty());
+	}
+
+	@Test
+	public void writeDuringLoadSkipsCacheFill() throws Exception {
+		final TestItem item = new TestItem("a", 1);
+		dao.insert(item);
+		dao.getDao().setObjectFactory(new ObjectFactory<TestItem>() {
+			@Override
+			public TestItem createObject(final Constructor<TestItem> constructor, final Class<TestItem> dataClass) {
+				ResultCache.incrementVersion("test_item");
+				return new TestItem();
+			}
+		});
+		dao.find(item.getId());
+		dao.getDao().setObjectFactory(null);
+		assertNull(dao.getEntityCache().get(item.getId()));
+	}
+
+	@Test
+	public void transactionBypassesCache() {
+		final TestItem item = new TestItem("a", 1);
+		dao.insert(item);
+		final TestItem cached = dao.find(item.getId());
+		dao.begin();
+		try {
+			item.setQty(2);
+			dao.update(item);
+			assertEquals(2, dao.find(item.getId()).getQty());
+			assertNull(dao.getEntityCache().get(item.getId()));
+		} finally {
+			dao.rollback();
+		}
+		final TestItem found = dao.find(item.getId());
+		assertNotSame(cached, found);
+		assertEquals(1, found.getQty());
+	}
+
+	@Test
+	public void commitInvalidatesCachedEntity() {
+		final TestItem item = new TestItem("a", 1);
+		dao.insert(item);
+		dao.find(item.getId());
+		dao.begin();
+		item.setQty(2);
+		dao.update(item);
+		dao.commit();
+		assertEquals(2, dao.find(item.getId()).getQty());
+	}
+
+	private static final class CachedItemDao extends AbstractDao<TestItem> {
+		private CachedItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected int getEntityCacheSize() {
+			return 16;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EntityToStringTest {
+	private TestDatabase database;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void printsPersistedFields() {
+		final String string = new TestItem("a", 1).toString();
+		assertTrue(string, string.contains("name=a"));
+		assertTrue(string, string.contains("qty=1"));
+		assertTrue(string, string.contains("createdAt="));
+	}
+
+	@Test
+	public void printsForeignReferencesById() {
+		final TestParent parent = new TestParent("p");
+		new TestParentDao(database).insert(parent);
+		final String string = new TestChild("c", parent).toString();
+		assertTrue(string, string.contains("parent=TestParent#" + parent.getId()));
+		assertFalse(string, string.contains("name=p,"));
+	}
+
+	@Test
+	public void leavesForeignCollectionsOut() {
+		final TestParent parent = new TestParent("p");
+		final TestParentDao parentDao = new TestParentDao(database);
+		parentDao.insert(parent);
+		new TestChildDao(database).insert(new TestChild("c", parent));
+		final String string = parentDao.find(parent.getId()).toString();
+		assertTrue(string, string.contains("name=p"));
+		assertFalse(string, string.contains("children"));
+	}
+
+	private static final class TestParentDao extends AbstractDao<TestParent> {
+		private TestParentDao(final Database database) {
+			super(database, TestParent.class);
+		}
+	}
+
+	private static final class TestChildDao extends AbstractDao<TestChild> {
+		private TestChildDao(final Database database) {
+			super(database, TestChild.class);
+		}
+	}
+}
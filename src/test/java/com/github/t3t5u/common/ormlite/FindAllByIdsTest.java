@@ -0,0 +1,84 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FindAllByIdsTest {
+	private TestDatabase database;
+	private ChunkedItemDao dao;
+	private TestItem a;
+	private TestItem b;
+	private TestItem c;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new ChunkedItemDao(database);
+		a = new TestItem("a", 1);
+		b = new TestItem("b", 2);
+		c = new TestItem("c", 3);
+		dao.insert(a);
+		dao.insert(b);
+		dao.insert(c);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void keepsTheRequestedOrderAcrossChunks() {
+		final List<TestItem> items = dao.findAllByIds(c.getId(), a.getId(), b.getId());
+		assertEquals(3, items.size());
+		assertEquals("c", items.get(0).getName());
+		assertEquals("a", items.get(1).getName());
+		assertEquals("b", items.get(2).getName());
+	}
+
+	@Test
+	public void skipsMissingIdsAndCollapsesDuplicates() {
+		final List<TestItem> items = dao.findAllByIds(b.getId(), 999, b.getId(), a.getId());
+		assertEquals(2, items.size());
+		assertEquals("b", items.get(0).getName());
+		assertEquals("a", items.get(1).getName());
+	}
+
+	@Test
+	public void mixesCachedAndLoadedEntities() {
+		dao.find(b.getId());
+		final Map<Long, TestItem> items = dao.findMapByIds(Arrays.asList(a.getId(), b.getId(), null, c.getId()));
+		assertEquals(Arrays.asList(a.getId(), b.getId(), c.getId()), Arrays.asList(items.keySet().toArray()));
+		assertEquals(1, dao.getEntityCache().getHitCount());
+	}
+
+	@Test
+	public void returnsNothingForNoIds() {
+		assertTrue(dao.findAllByIds().isEmpty());
+		assertTrue(dao.findMapByIds(null).isEmpty());
+	}
+
+	private static final class ChunkedItemDao extends AbstractDao<TestItem> {
+		private ChunkedItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected int getMaxParameters() {
+			return 2;
+		}
+
+		@Override
+		protected int getEntityCacheSize() {
+			return 16;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FindPageTest {
+	private TestDatabase database;
+	private TestItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new TestItemDao(database);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void pagesAcrossDuplicateKeysWithoutSkippingOrRepeating() {
+		final int[] quantities = { 3, 1, 2, 1, 3, 1, 2, 3, 1, 2, 2 };
+		for (int i = 0; i < quantities.length; i++) {
+			assertTrue(dao.insert(new TestItem("item" + i, quantities[i])));
+		}
+		final List<TestItem> expected = dao.findAll(dao.buildQuery(new ColumnOrder<TestItem>("qty", false), new ColumnOrder<TestItem>("id", false)));
+		final List<TestItem> actual = new ArrayList<TestItem>();
+		PageCursor cursor = null;
+		for (int pages = 0; pages <= quantities.length; pages++) {
+			final Page<TestItem> page = dao.findPage(cursor, 2, new ColumnOrder<TestItem>("qty", false));
+			actual.addAll(page.getEntities());
+			if (!page.hasNext()) {
+				break;
+			}
+			cursor = page.getNextCursor();
+		}
+		assertEquals(toIds(expected), toIds(actual));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void lastPageHasNoCursor() {
+		dao.insert(new TestItem("a", 1));
+		dao.insert(new TestItem("b", 1));
+		final Page<TestItem> page = dao.findPage(null, 2, new ColumnOrder<TestItem>("qty", true));
+		assertEquals(2, page.getEntities().size());
+		assertFalse(page.hasNext());
+	}
+
+	private static List<Long> toIds(final List<TestItem> items) {
+		final List<Long> ids = new ArrayList<Long>();
+		for (final TestItem item : items) {
+			ids.add(item.getId());
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,146 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InTransactionTest {
+	private TestDatabase database;
+	private TestItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new TestItemDao(database);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void commitsOnSuccess() {
+		final TestItem item = new TestItem("a", 1);
+		dao.inTransaction(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return dao.insert(item);
+			}
+		});
+		assertNotNull(dao.find(item.getId()));
+	}
+
+	@Test
+	public void rollsBackOnFailure() {
+		final TestItem item = new TestItem("a", 1);
+		try {
+			dao.inTransaction(new Callable<Void>() {
+				@Override
+				public Void call() {
+					dao.insert(item);
+					throw new IllegalStateException();
+				}
+			});
+			fail();
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+		assertNull(dao.find(item.getId()));
+		assertEquals(0, dao.count());
+	}
+
+	@Test
+	public void failingNestedScopeRollsBackToItsSavepointOnly() {
+		final TestItem outer = new TestItem("outer", 1);
+		final TestItem middle = new TestItem("middle", 2);
+		final TestItem inner = new TestItem("inner", 3);
+		dao.inTransaction(new Callable<Void>() {
+			@Override
+			public Void call() {
+				dao.insert(outer);
+				dao.inTransaction(new Callable<Void>() {
+					@Override
+					public Void call() {
+						dao.insert(middle);
+						try {
+							dao.inTransaction(new Callable<Void>() {
+								@Override
+								public Void call() {
+									dao.insert(inner);
+									throw new IllegalStateException();
+								}
+							});
+							fail();
+						} catch (final IllegalStateException e) {
+							// expected
+						}
+						return null;
+					}
+				});
+				return null;
+			}
+		});
+		assertNotNull(dao.find(outer.getId()));
+		assertNotNull(dao.find(middle.getId()));
+		assertNull(dao.find(inner.getId()));
+		assertEquals(2, dao.count());
+	}
+
+	@Test
+	public void failingNestedScopeRollsBackItsOwnNestedWork() {
+		final TestItem outer = new TestItem("outer", 1);
+		final TestItem middle = new TestItem("middle", 2);
+		final TestItem inner = new TestItem("inner", 3);
+		dao.inTransaction(new Callable<Void>() {
+			@Override
+			public Void call() {
+				dao.insert(outer);
+				try {
+					dao.inTransaction(new Callable<Void>() {
+						@Override
+						public Void call() {
+							dao.insert(middle);
+							dao.inTransaction(new Callable<Boolean>() {
+								@Override
+								public Boolean call() {
+									return dao.insert(inner);
+								}
+							});
+							throw new IllegalStateException();
+						}
+					});
+					fail();
+				} catch (final IllegalStateException e) {
+					// expected
+				}
+				return null;
+			}
+		});
+		assertNotNull(dao.find(outer.getId()));
+		assertNull(dao.find(middle.getId()));
+		assertNull(dao.find(inner.getId()));
+		assertEquals(1, dao.count());
+	}
+
+	@Test
+	public void nestedScopeJoinsCallerTransaction() {
+		final TestItem item = new TestItem("a", 1);
+		dao.begin();
+		dao.inTransaction(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return dao.insert(item);
+			}
+		});
+		dao.rollback();
+		assertNull(dao.find(item.getId()));
+	}
+}
@@ -0,0 +1,113 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.t3t5u.common.database.Entity;
+import com.j256.ormlite.dao.CloseableIterator;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.QueryBuilder;
+
+public class IterateTest {
+	private TestDatabase primary;
+	private TestDatabase replica;
+	private ReplicatedItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		primary = new TestDatabase();
+		replica = new TestDatabase();
+		dao = new ReplicatedItemDao(new TestReplicatedDatabase());
+		final TestItemDao replicaDao = new TestItemDao(replica);
+		replicaDao.insert(new TestItem("c", 3));
+		replicaDao.insert(new TestItem("a", 1));
+		replicaDao.insert(new TestItem("b", 2));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		primary.close();
+		replica.close();
+	}
+
+	@Test
+	public void iteratesInQueryOrder() throws Exception {
+		final QueryBuilder<TestItem, Long> queryBuilder = dao.buildQuery();
+		queryBuilder.orderBy("qty", true);
+		final List<String> names = new ArrayList<String>();
+		final CloseableIterator<TestItem> iterator = dao.iterate(queryBuilder);
+		try {
+			while (iterator.hasNext()) {
+				names.add(iterator.next().getName());
+			}
+		} finally {
+			iterator.close();
+		}
+		assertEquals(3, names.size());
+		assertEquals("a", names.get(0));
+		assertEquals("b", names.get(1));
+		assertEquals("c", names.get(2));
+	}
+
+	@Test
+	public void replicaIsHeldUntilClose() throws Exception {
+		final CloseableIterator<TestItem> iterator = dao.iterate(dao.buildQuery());
+		try {
+			assertEquals(1, dao.getReplicaRouter().getLoad(0));
+			iterator.next();
+			assertEquals(1, dao.getReplicaRouter().getLoad(0));
+		} finally {
+			iterator.close();
+		}
+		assertEquals(0, dao.getReplicaRouter().getLoad(0));
+		iterator.close();
+		assertEquals(0, dao.getReplicaRouter().getLoad(0));
+	}
+
+	@Test
+	public void replicaIsReleasedWhenExhausted() {
+		final CloseableIterator<TestItem> iterator = dao.iterate(dao.buildQuery());
+		for (int i = 0; i < 3; i++) {
+			iterator.next();
+		}
+		assertFalse(iterator.hasNext());
+		assertEquals(0, dao.getReplicaRouter().getLoad(0));
+	}
+
+	private final class TestReplicatedDatabase implements ReplicatedDatabase {
+		@Override
+		public Date getNow() {
+			return primary.getNow();
+		}
+
+		@Override
+		public <E extends Entity> Dao<E, Long> getDao(final Class<E> clazz) {
+			return primary.getDao(clazz);
+		}
+
+		@Override
+		public <E extends Entity> List<Dao<E, Long>> getReplicaDaos(final Class<E> clazz) {
+			return Collections.singletonList(replica.getDao(clazz));
+		}
+	}
+
+	private static final class ReplicatedItemDao extends AbstractDao<TestItem> {
+		private ReplicatedItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected long getReadYourWritesWindow() {
+			return 0;
+		}
+	}
+}
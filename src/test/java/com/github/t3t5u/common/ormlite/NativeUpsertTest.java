@@ -0,0 +1,100 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.t3t5u.common.database.Entity;
+import com.j256.ormlite.dao.BaseDaoImpl;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.db.H2DatabaseType;
+import com.j256.ormlite.db.MysqlDatabaseType;
+import com.j256.ormlite.db.SqliteDatabaseType;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.table.TableInfo;
+import com.j256.ormlite.table.TableUtils;
+
+public class NativeUpsertTest {
+	private TestDatabase database;
+	private UpsertItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new UpsertItemDao(database);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void unsupportedDialectFallsBackToUpdate() {
+		assertNull(NativeUpsert.create(new H2DatabaseType(), dao.getTableInfo()));
+		final TestItem item = new TestItem("a", 1);
+		assertTrue(dao.insertOrUpdate(item));
+		item.setQty(2);
+		assertTrue(dao.insertOrUpdate(item));
+		assertEquals(1, dao.count());
+		assertEquals(2, dao.find(item.getId()).getQty());
+	}
+
+	@Test
+	public void zeroRowsMatchedFallsBackToCreate() throws Exception {
+		final TestItem item = new TestItem("a", 1);
+		assertTrue(dao.insert(item));
+		dao.getDao().executeRaw("DELETE FROM test_item");
+		item.setQty(2);
+		assertTrue(dao.insertOrUpdate(item));
+		assertEquals(1, dao.count());
+		assertEquals(2, dao.findAll().get(0).getQty());
+	}
+
+	@Test
+	public void sqliteUpsertUpdatesOnConflict() {
+		final String statement = NativeUpsert.create(new SqliteDatabaseType(), dao.getTableInfo()).getStatement();
+		assertTrue(statement, statement.startsWith("INSERT INTO `test_item` ("));
+		assertTrue(statement, statement.contains(" ON CONFLICT (`id`) DO UPDATE SET "));
+		assertTrue(statement, statement.contains("`qty` = EXCLUDED.`qty`"));
+		assertFalse(statement, statement.contains("`id` = EXCLUDED"));
+		assertFalse(statement, statement.contains("`" + Entity.COLUMN_NAME_CREATED_AT + "` = EXCLUDED"));
+	}
+
+	@Test
+	public void mysqlUpsertInsertsThenUpdates() throws Exception {
+		final JdbcConnectionSource connectionSource = new JdbcConnectionSource("jdbc:h2:mem:upsert;MODE=MySQL");
+		try {
+			TableUtils.createTable(connectionSource, TestItem.class);
+			final Dao<TestItem, Long> itemDao = DaoManager.createDao(connectionSource, TestItem.class);
+			final TableInfo<TestItem, Long> tableInfo = ((BaseDaoImpl<TestItem, Long>) itemDao).getTableInfo();
+			final NativeUpsert<TestItem> nativeUpsert = NativeUpsert.create(new MysqlDatabaseType(), tableInfo);
+			final TestItem item = new TestItem("a", 1);
+			itemDao.create(item);
+			item.setQty(2);
+			assertTrue(nativeUpsert.upsert(connectionSource, item));
+			assertEquals(1, itemDao.countOf());
+			assertEquals(2, itemDao.queryForId(item.getId()).getQty());
+		} finally {
+			DaoManager.clearCache();
+			connectionSource.close();
+		}
+	}
+
+	private static final class UpsertItemDao extends AbstractDao<TestItem> {
+		private UpsertItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected boolean isNativeUpsert() {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.dao.RawRowMapper;
+import com.j256.ormlite.stmt.QueryBuilder;
+
+public class ProjectionTest {
+	private TestDatabase database;
+	private TestItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new TestItemDao(database);
+		dao.insert(new TestItem("b", 2));
+		dao.insert(new TestItem("a", 1));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void projectsTypedColumns() {
+		final List<Object[]> rows = dao.project(buildOrderedQuery(), "name", "qty");
+		assertEquals(2, rows.size());
+		assertArrayEquals(new Object[] { "a", 1 }, rows.get(0));
+		assertArrayEquals(new Object[] { "b", 2 }, rows.get(1));
+	}
+
+	@Test
+	public void projectsIntoConstructor() {
+		final List<NameQty> rows = dao.project(buildOrderedQuery(), NameQty.class, "name", "qty");
+		assertEquals(2, rows.size());
+		assertEquals("a", rows.get(0).name);
+		assertEquals(1, rows.get(0).qty);
+		assertEquals("b", rows.get(1).name);
+		assertEquals(2, rows.get(1).qty);
+	}
+
+	@Test
+	public void projectsThroughRawRowMapper() {
+		final List<String> rows = dao.project(buildOrderedQuery(), new RawRowMapper<String>() {
+			@Override
+			public String mapRow(final String[] columnNames, final String[] resultColumns) {
+				return resultColumns[0] + ":" + resultColumns[1];
+			}
+		}, "name", "qty");
+		assertEquals(2, rows.size());
+		assertEquals("a:1", rows.get(0));
+		assertEquals("b:2", rows.get(1));
+	}
+
+	private QueryBuilder<TestItem, Long> buildOrderedQuery() {
+		return dao.buildQuery().orderBy("qty", true);
+	}
+
+	public static final class NameQty {
+		private final String name;
+		private final int qty;
+
+		public NameQty(final String name, final int qty) {
+			this.name = name;
+			this.qty = qty;
+		}
+	}
+}
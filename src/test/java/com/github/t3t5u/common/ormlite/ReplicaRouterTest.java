@@ -0,0 +1,186 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.t3t5u.common.database.Entity;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.table.ObjectFactory;
+
+public class ReplicaRouterTest {
+	private TestDatabase primary;
+	private TestDatabase replica;
+
+	@Before
+	public void setUp() throws Exception {
+		primary = new TestDatabase();
+		replica = new TestDatabase();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		primary.close();
+		replica.close();
+	}
+
+	@Test
+	public void writerReadsItsOwnWritesFromPrimary() {
+		final ReplicatedItemDao dao = new ReplicatedItemDao(new TestReplicatedDatabase(), 60000, 0);
+		final TestItem item = new TestItem("a", 1);
+		dao.insert(item);
+		assertNotNull(dao.find(item.getId()));
+	}
+
+	@Test
+	public void otherThreadsStillReadFromReplica() throws Exception {
+		final ReplicatedItemDao dao = new ReplicatedItemDao(new TestReplicatedDatabase(), 60000, 0);
+		final TestItem item = new TestItem("a", 1);
+		dao.insert(item);
+		final ExecutorService executorService = Executors.newSingleThreadExecutor();
+		try {
+			assertNull(executorService.submit(new Callable<TestItem>() {
+				@Override
+				public TestItem call() {
+					return dao.find(item.getId());
+				}
+			}).get());
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	public void transactionLongerThanWindowStillReadsItsWrites() throws Exception {
+		final ReplicatedItemDao dao = new ReplicatedItemDao(new TestReplicatedDatabase(), 50, 0);
+		final TestItem item = new TestItem("a", 1);
+		dao.begin();
+		dao.insert(item);
+		Thread.sleep(100);
+		dao.commit();
+		assertNotNull(dao.find(item.getId()));
+	}
+
+	@Test
+	public void replicaReadsAreNotCached() throws Exception {
+		final TestItem stale = new TestItem("stale", 1);
+		new TestItemDao(replica).insert(stale);
+		final ReplicatedItemDao dao = new ReplicatedItemDao(new TestReplicatedDatabase(), 0, 16);
+		assertEquals("stale", dao.find(stale.getId()).getName());
+		assertNull(dao.getEntityCache().get(stale.getId()));
+		assertEquals(1, dao.findAllByIds(stale.getId()).size());
+		assertNull(dao.getEntityCache().get(stale.getId()));
+	}
+
+	@Test
+	public void writerDoesNotJoinReplicaFlight() throws Exception {
+		new TestItemDao(replica).insert(new TestItem("stale", 1));
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicBoolean blocked = new AtomicBoolean();
+		replica.getDao(TestItem.class).setObjectFactory(new ObjectFactory<TestItem>() {
+			@Override
+			public TestItem createObject(final Constructor<TestItem> constructor, final Class<TestItem> dataClass) {
+				if (blocked.compareAndSet(false, true)) {
+					loading.countDown();
+					try {
+						release.await(10, TimeUnit.SECONDS);
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return new TestItem();
+			}
+		});
+		final CoalescingReplicatedItemDao dao = new CoalescingReplicatedItemDao(new TestReplicatedDatabase());
+		final TestItem item = new TestItem("fresh", 2);
+		dao.insert(item);
+		final ExecutorService executorService = Executors.newSingleThreadExecutor();
+		try {
+			final Future<TestItem> replicaRead = executorService.submit(new Callable<TestItem>() {
+				@Override
+				public TestItem call() {
+					return dao.find(item.getId());
+				}
+			});
+			loading.await(10, TimeUnit.SECONDS);
+			assertEquals("fresh", dao.find(item.getId()).getName());
+			assertEquals(0, dao.getSingleFlight().getCoalescedCount());
+			release.countDown();
+			assertEquals("stale", replicaRead.get().getName());
+		} finally {
+			release.countDown();
+			executorService.shutdownNow();
+		}
+	}
+
+	private final class TestReplicatedDatabase implements ReplicatedDatabase {
+		@Override
+		public Date getNow() {
+			return primary.getNow();
+		}
+
+		@Override
+		public <E extends Entity> Dao<E, Long> getDao(final Class<E> clazz) {
+			return primary.getDao(clazz);
+		}
+
+		@Override
+		public <E extends Entity> List<Dao<E, Long>> getReplicaDaos(final Class<E> clazz) {
+			return Collections.singletonList(replica.getDao(clazz));
+		}
+	}
+
+	private static final class ReplicatedItemDao extends AbstractDao<TestItem> {
+		private final long readYourWritesWindow;
+		private final int entityCacheSize;
+
+		private ReplicatedItemDao(final Database database, final long readYourWritesWindow, final int entityCacheSize) {
+			super(database, TestItem.class);
+			this.readYourWritesWindow = readYourWritesWindow;
+			this.entityCacheSize = entityCacheSize;
+		}
+
+		@Override
+		protected long getReadYourWritesWindow() {
+			return readYourWritesWindow;
+		}
+
+		@Override
+		protected int getEntityCacheSize() {
+			return entityCacheSize;
+		}
+	}
+
+	private static final class CoalescingReplicatedItemDao extends AbstractDao<TestItem> {
+		private CoalescingReplicatedItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected long getReadYourWritesWindow() {
+			return 60000;
+		}
+
+		@Override
+		protected boolean isSingleFlight() {
+			return true;
+		}
+	}
+}
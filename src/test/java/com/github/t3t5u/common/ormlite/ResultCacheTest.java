@@ -0,0 +1,94 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.stmt.QueryBuilder;
+
+public class ResultCacheTest {
+	private TestDatabase database;
+	private CachedResultItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new CachedResultItemDao(database);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void writeInvalidatesCachedResult() {
+		dao.insert(new TestItem("a", 1));
+		assertEquals(1, dao.findAll(dao.buildQuery()).size());
+		assertEquals(1, dao.findAll(dao.buildQuery()).size());
+		assertEquals(1, dao.getResultCache().getHitCount());
+		dao.insert(new TestItem("b", 2));
+		assertEquals(2, dao.findAll(dao.buildQuery()).size());
+		assertEquals(1, dao.getResultCache().getHitCount());
+	}
+
+	@Test
+	public void queriesAreTrackedOnlyWhenCaching() {
+		final QueryBuilder<TestItem, Long> tracked = dao.buildQuery();
+		final QueryBuilder<TestItem, Long> untracked = new TestItemDao(database).buildQuery();
+		assertArrayEquals(new String[] { "other", "test_item" }, ResultCache.getTables(tracked, "other"));
+		assertArrayEquals(new String[] { "other" }, ResultCache.getTables(untracked, "other"));
+	}
+
+	@Test
+	public void writeToUncachedJoinedTableInvalidatesCachedResult() throws Exception {
+		final CachedResultChildDao childDao = new CachedResultChildDao(database);
+		final TestParentDao parentDao = new TestParentDao(database);
+		final TestParent parent = new TestParent("p");
+		parentDao.insert(parent);
+		childDao.insert(new TestChild("c", parent));
+		assertEquals(1, childDao.findAll(buildJoinedQuery(childDao, parentDao)).size());
+		assertEquals(1, childDao.findAll(buildJoinedQuery(childDao, parentDao)).size());
+		assertEquals(1, childDao.getResultCache().getHitCount());
+		parentDao.delete(parent);
+		assertEquals(0, childDao.findAll(buildJoinedQuery(childDao, parentDao)).size());
+		assertEquals(1, childDao.getResultCache().getHitCount());
+	}
+
+	private static QueryBuilder<TestChild, Long> buildJoinedQuery(final CachedResultChildDao childDao, final TestParentDao parentDao) throws Exception {
+		final QueryBuilder<TestParent, Long> parentQueryBuilder = parentDao.buildQuery();
+		parentQueryBuilder.where().eq("name", "p");
+		return AbstractDao.joinIfNotNull(childDao.buildQuery(), parentQueryBuilder);
+	}
+
+	private static final class CachedResultItemDao extends AbstractDao<TestItem> {
+		private CachedResultItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected int getResultCacheSize() {
+			return 16;
+		}
+	}
+
+	private static final class CachedResultChildDao extends AbstractDao<TestChild> {
+		private CachedResultChildDao(final Database database) {
+			super(database, TestChild.class);
+		}
+
+		@Override
+		protected int getResultCacheSize() {
+			return 16;
+		}
+	}
+
+	private static final class TestParentDao extends AbstractDao<TestParent> {
+		private TestParentDao(final Database database) {
+			super(database, TestParent.class);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.t3t5u.common.expression.Expression;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.table.TableUtils;
+
+public class ShardedDaoTest {
+	private TestDatabase database1;
+	private TestDatabase database2;
+	private ExecutorService executorService;
+	private ShardedDao<TestItem> shardedDao;
+
+	@Before
+	public void setUp() throws Exception {
+		database1 = new TestDatabase();
+		database2 = new TestDatabase();
+		executorService = Executors.newFixedThreadPool(2);
+		final TestItemDao shard1 = new TestItemDao(database1);
+		final TestItemDao shard2 = new TestItemDao(database2);
+		shard1.insert(new TestItem("a", 1));
+		shard1.insert(new TestItem("c", 3));
+		shard2.insert(new TestItem("b", 2));
+		shardedDao = new ShardedDao<TestItem>(Arrays.asList(shard1, shard2), executorService);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executorService.shutdownNow();
+		database1.close();
+		database2.close();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void mergesShardsInOrder() {
+		final List<TestItem> items = shardedDao.findAll((Expression<Boolean>) null, new ColumnOrder<TestItem>("qty", true));
+		assertEquals(3, items.size());
+		assertEquals("a", items.get(0).getName());
+		assertEquals("b", items.get(1).getName());
+		assertEquals("c", items.get(2).getName());
+		assertEquals(3, shardedDao.count());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void nullsSortFirstAscendingAndLastDescending() {
+		((TestItemDao) shardedDao.getShards().get(1)).insert(new TestItem(null, 0));
+		final List<TestItem> ascending = shardedDao.findAll((Expression<Boolean>) null, new ColumnOrder<TestItem>("name", true));
+		assertEquals(4, ascending.size());
+		assertNull(ascending.get(0).getName());
+		assertEquals("a", ascending.get(1).getName());
+		final List<TestItem> descending = shardedDao.findAll((Expression<Boolean>) null, new ColumnOrder<TestItem>("name", false));
+		assertEquals(4, descending.size());
+		assertEquals("c", descending.get(0).getName());
+		assertNull(descending.get(3).getName());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void shardOrderDisagreeingWithMergeOrderYieldsNoResult() {
+		((TestItemDao) shardedDao.getShards().get(0)).insert(new TestItem("B", 4));
+		final ColumnOrder<TestItem> caseInsensitive = new ColumnOrder<TestItem>("name", true) {
+			@Override
+			protected QueryBuilder<TestItem, Long> orderBy(final QueryBuilder<TestItem, Long> queryBuilder, final String columnName, final boolean ascending, final Date now) {
+				return queryBuilder.orderByRaw("LOWER(name)");
+			}
+		};
+		assertTrue(shardedDao.findAll((Expression<Boolean>) null, caseInsensitive).isEmpty());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void failingShardYieldsNoPartialResult() throws Exception {
+		TableUtils.dropTable(database2.getConnectionSource(), TestItem.class, false);
+		assertTrue(shardedDao.findAll((Expression<Boolean>) null, new ColumnOrder<TestItem>("qty", true)).isEmpty());
+		assertEquals(0, shardedDao.count());
+		assertEquals(0, shardedDao.count(null));
+	}
+}
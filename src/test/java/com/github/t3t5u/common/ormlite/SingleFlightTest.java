@@ -0,0 +1,106 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.table.ObjectFactory;
+
+public class SingleFlightTest {
+	private TestDatabase database;
+	private CoalescingItemDao dao;
+	private ExecutorService executorService;
+	private final CountDownLatch loading = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new CoalescingItemDao(database);
+		executorService = Executors.newCachedThreadPool();
+		final AtomicBoolean blocked = new AtomicBoolean();
+		dao.getDao().setObjectFactory(new ObjectFactory<TestItem>() {
+			@Override
+			public TestItem createObject(final Constructor<TestItem> constructor, final Class<TestItem> dataClass) {
+				if (blocked.compareAndSet(false, true)) {
+					loading.countDown();
+					try {
+						release.await(10, TimeUnit.SECONDS);
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return new TestItem();
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		release.countDown();
+		executorService.shutdownNow();
+		database.close();
+	}
+
+	@Test
+	public void coalescedCallersGetTheirOwnCopies() throws Exception {
+		final TestItem item = new TestItem("a", 1);
+		dao.insert(item);
+		final Future<TestItem> leader = executorService.submit(find(item.getId()));
+		loading.await(10, TimeUnit.SECONDS);
+		final Future<TestItem> follower = executorService.submit(find(item.getId()));
+		while (dao.getSingleFlight().getCoalescedCount() == 0) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+		assertNotSame(leader.get(), follower.get());
+		assertEquals(leader.get().getQty(), follower.get().getQty());
+		assertEquals(leader.get().getName(), follower.get().getName());
+	}
+
+	@Test
+	public void writerDoesNotJoinFlightStartedBeforeItsWrite() throws Exception {
+		final TestItem item = new TestItem("a", 1);
+		dao.insert(item);
+		final Future<TestItem> leader = executorService.submit(find(item.getId()));
+		loading.await(10, TimeUnit.SECONDS);
+		item.setQty(2);
+		dao.update(item);
+		assertEquals(2, dao.find(item.getId()).getQty());
+		assertEquals(0, dao.getSingleFlight().getCoalescedCount());
+		release.countDown();
+		assertEquals(1, leader.get().getQty());
+	}
+
+	private Callable<TestItem> find(final long id) {
+		return new Callable<TestItem>() {
+			@Override
+			public TestItem call() {
+				return dao.find(id);
+			}
+		};
+	}
+
+	private static final class CoalescingItemDao extends AbstractDao<TestItem> {
+		private CoalescingItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected boolean isSingleFlight() {
+			return true;
+		}
+	}
+}
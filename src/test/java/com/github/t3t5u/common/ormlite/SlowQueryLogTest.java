@@ -0,0 +1,93 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+
+public class SlowQueryLogTest {
+	private TestDatabase database;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void keepsTheLatestQueriesInOrder() {
+		final SlowQueryLog slowQueryLog = new SlowQueryLog(0, 2);
+		slowQueryLog.add(newSlowQuery("a"));
+		slowQueryLog.add(newSlowQuery("b"));
+		slowQueryLog.add(newSlowQuery("c"));
+		final List<SlowQuery> slowQueries = slowQueryLog.getSlowQueries();
+		assertEquals(2, slowQueries.size());
+		assertEquals("b", slowQueries.get(0).getStatement());
+		assertEquals("c", slowQueries.get(1).getStatement());
+		assertEquals(3, slowQueryLog.getCount());
+	}
+
+	@Test
+	public void comparesAgainstTheThreshold() {
+		final SlowQueryLog slowQueryLog = new SlowQueryLog(10, 1);
+		assertFalse(slowQueryLog.isSlow(TimeUnit.MILLISECONDS.toNanos(9)));
+		assertTrue(slowQueryLog.isSlow(TimeUnit.MILLISECONDS.toNanos(10)));
+	}
+
+	@Test
+	public void recordsStatementAndArgsOfSlowQueries() throws Exception {
+		final LoggedItemDao dao = new LoggedItemDao(database, new SlowQueryLog(0, 4));
+		dao.insert(new TestItem("a", 1));
+		dao.getSlowQueryLog().clear();
+		final QueryBuilder<TestItem, Long> queryBuilder = dao.buildQuery();
+		queryBuilder.where().eq("qty", new SelectArg(1));
+		assertEquals(1, dao.findAll(queryBuilder).size());
+		final List<SlowQuery> slowQueries = dao.getSlowQueryLog().getSlowQueries();
+		final SlowQuery slowQuery = slowQueries.get(slowQueries.size() - 1);
+		assertEquals(DaoOperation.FIND_ALL, slowQuery.getOperation());
+		assertEquals(TestItem.class, slowQuery.getClazz());
+		assertTrue(slowQuery.getStatement(), slowQuery.getStatement().contains("`qty` = ?"));
+		assertArrayEquals(new Object[] { 1 }, slowQuery.getArgs());
+		assertEquals(1, slowQuery.getRows());
+	}
+
+	@Test
+	public void fastQueriesAreNotRecorded() {
+		final LoggedItemDao dao = new LoggedItemDao(database, new SlowQueryLog(60000, 4));
+		dao.insert(new TestItem("a", 1));
+		dao.findAll();
+		assertEquals(0, dao.getSlowQueryLog().getCount());
+	}
+
+	private static SlowQuery newSlowQuery(final String statement) {
+		return new SlowQuery(0, TestItem.class, DaoOperation.FIND_ALL, statement, null, 0, 0);
+	}
+
+	private static final class LoggedItemDao extends AbstractDao<TestItem> {
+		private final SlowQueryLog slowQueryLog;
+
+		private LoggedItemDao(final Database database, final SlowQueryLog slowQueryLog) {
+			super(database, TestItem.class);
+			this.slowQueryLog = slowQueryLog;
+		}
+
+		@Override
+		protected SlowQueryLog getSlowQueryLog() {
+			return slowQueryLog;
+		}
+	}
+}
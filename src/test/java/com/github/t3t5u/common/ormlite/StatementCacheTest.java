@@ -0,0 +1,77 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.t3t5u.common.expression.Expression;
+import com.j256.ormlite.field.SqlType;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+
+public class StatementCacheTest {
+	private TestDatabase database;
+	private TestItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new TestItemDao(database);
+		dao.insert(new TestItem("a", 1));
+		dao.insert(new TestItem("b", 2));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void columnOrdersAreCached() {
+		final List<TestItem> first = dao.findAll(dao.prepareQuery((Expression<Boolean>) null, new ColumnOrder<TestItem>("qty", false)));
+		final List<TestItem> second = dao.findAll(dao.prepareQuery((Expression<Boolean>) null, new ColumnOrder<TestItem>("qty", false)));
+		assertEquals("b", first.get(0).getName());
+		assertEquals("b", second.get(0).getName());
+		assertEquals(1, dao.getStatementCache().size());
+		assertEquals(1, dao.getStatementCache().getHitCount());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void rawOrdersWithArgsAreNotCached() {
+		final Order<TestItem> byA = new RawOrder<TestItem>("CASE WHEN name = ? THEN 0 ELSE 1 END", new SelectArg(SqlType.STRING, "a"));
+		final Order<TestItem> byB = new RawOrder<TestItem>("CASE WHEN name = ? THEN 0 ELSE 1 END", new SelectArg(SqlType.STRING, "b"));
+		assertEquals("a", dao.findAll(dao.prepareQuery((Expression<Boolean>) null, byA)).get(0).getName());
+		assertEquals("b", dao.findAll(dao.prepareQuery((Expression<Boolean>) null, byB)).get(0).getName());
+		assertEquals(0, dao.getStatementCache().size());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void rawOrdersWithoutArgsAreCached() {
+		final Order<TestItem> order = new RawOrder<TestItem>("qty DESC");
+		assertEquals("b", dao.findAll(dao.prepareQuery((Expression<Boolean>) null, order)).get(0).getName());
+		assertEquals("b", dao.findAll(dao.prepareQuery((Expression<Boolean>) null, new RawOrder<TestItem>("qty DESC"))).get(0).getName());
+		assertEquals(1, dao.getStatementCache().getHitCount());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void ordersThatDependOnNowAreNotCached() {
+		final Order<TestItem> order = new ColumnOrder<TestItem>("qty", true) {
+			@Override
+			public QueryBuilder<TestItem, Long> orderBy(final QueryBuilder<TestItem, Long> queryBuilder, final Date now) {
+				return queryBuilder.orderByRaw("qty " + (now.getTime() >= 0 ? "ASC" : "DESC"));
+			}
+		};
+		assertEquals("a", dao.findAll(dao.prepareQuery((Expression<Boolean>) null, order)).get(0).getName());
+		dao.findAll(dao.prepareQuery((Expression<Boolean>) null, order));
+		assertEquals(0, dao.getStatementCache().size());
+	}
+}
@@ -0,0 +1,76 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.t3t5u.common.expression.Expression;
+import com.j256.ormlite.table.DatabaseTableConfig;
+
+public class TableConfigRegistryTest {
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	private TestDatabase database;
+	private ExecutorService executorService;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		executorService = Executors.newFixedThreadPool(2);
+		file = File.createTempFile("table-config", ".txt");
+		file.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executorService.shutdownNow();
+		file.delete();
+		database.close();
+	}
+
+	@Test
+	public void writesFingerprints() throws Exception {
+		final List<DatabaseTableConfig<?>> configs = TableConfigRegistry.register(database.getConnectionSource(), Collections.singletonList(TestItem.class), file, executorService);
+		assertEquals(1, configs.size());
+		assertEquals(TableConfigRegistry.fingerprint(TestItem.class), TableConfigRegistry.loadFingerprints(file).get(TestItem.class.getName()));
+		assertEquals(1, TableConfigRegistry.register(database.getConnectionSource(), Collections.singletonList(TestItem.class), file, executorService).size());
+	}
+
+	@Test
+	public void rebuildsStaleFile() throws Exception {
+		TableConfigRegistry.register(database.getConnectionSource(), Collections.singletonList(TestItem.class), file, executorService);
+		final String content = new String(Files.readAllBytes(file.toPath()), CHARSET);
+		final String fingerprint = TableConfigRegistry.fingerprint(TestItem.class);
+		Files.write(file.toPath(), content.replace(fingerprint, "stale").getBytes(CHARSET));
+		assertNotEquals(fingerprint, TableConfigRegistry.loadFingerprints(file).get(TestItem.class.getName()));
+		TableConfigRegistry.register(database.getConnectionSource(), Collections.singletonList(TestItem.class), file, executorService);
+		assertEquals(fingerprint, TableConfigRegistry.loadFingerprints(file).get(TestItem.class.getName()));
+	}
+
+	@Test
+	public void fingerprintsDifferByFields() {
+		assertNotEquals(TableConfigRegistry.fingerprint(TestItem.class), TableConfigRegistry.fingerprint(TestChild.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void warmUpPreparesReusableStatements() throws Exception {
+		final TestItemDao dao = new TestItemDao(database);
+		TableConfigRegistry.warmUp(Collections.singletonList(dao), executorService);
+		assertEquals(2, dao.getStatementCache().size());
+		assertEquals(0, dao.findAll(dao.prepareQuery((Expression<Boolean>) null)).size());
+		assertEquals(0, dao.count(dao.prepareCount((Expression<Boolean>) null)));
+		assertEquals(2, dao.getStatementCache().getHitCount());
+	}
+}
@@ -0,0 +1,35 @@
+package com.github.t3t5u.common.ormlite;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@SuppressWarnings("serial")
+@DatabaseTable(tableName = "test_child")
+public class TestChild extends AbstractJoinableEntity {
+	@DatabaseField(generatedId = true)
+	private long id;
+	@DatabaseField
+	private String name;
+	@DatabaseField(foreign = true)
+	private TestParent parent;
+
+	public TestChild() {
+	}
+
+	public TestChild(final String name, final TestParent parent) {
+		this.name = name;
+		this.parent = parent;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public TestParent getParent() {
+		return parent;
+	}
+}
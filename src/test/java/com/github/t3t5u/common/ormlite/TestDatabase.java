@@ -0,0 +1,47 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.t3t5u.common.database.Entity;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+public class TestDatabase implements Database {
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+	private final JdbcConnectionSource connectionSource;
+
+	public TestDatabase() throws SQLException {
+		this.connectionSource = new JdbcConnectionSource("jdbc:h2:mem:test" + SEQUENCE.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+		TableUtils.createTable(connectionSource, TestItem.class);
+		TableUtils.createTable(connectionSource, TestParent.class);
+		TableUtils.createTable(connectionSource, TestChild.class);
+	}
+
+	@Override
+	public Date getNow() {
+		return new Date();
+	}
+
+	@Override
+	public <E extends Entity> Dao<E, Long> getDao(final Class<E> clazz) {
+		try {
+			return DaoManager.createDao(connectionSource, clazz);
+		} catch (final SQLException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public ConnectionSource getConnectionSource() {
+		return connectionSource;
+	}
+
+	public void close() throws SQLException {
+		DaoManager.clearCache();
+		connectionSource.close();
+	}
+}
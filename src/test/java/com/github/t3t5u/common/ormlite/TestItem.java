@@ -0,0 +1,43 @@
+package com.github.t3t5u.common.ormlite;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@SuppressWarnings("serial")
+@DatabaseTable(tableName = "test_item")
+public class TestItem extends AbstractJoinableEntity {
+	@DatabaseField(generatedId = true)
+	private long id;
+	@DatabaseField
+	private String name;
+	@DatabaseField
+	private int qty;
+
+	public TestItem() {
+	}
+
+	public TestItem(final String name, final int qty) {
+		this.name = name;
+		this.qty = qty;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(final String name) {
+		this.name = name;
+	}
+
+	public int getQty() {
+		return qty;
+	}
+
+	public void setQty(final int qty) {
+		this.qty = qty;
+	}
+}
@@ -0,0 +1,7 @@
+package com.github.t3t5u.common.ormlite;
+
+public class TestItemDao extends AbstractDao<TestItem> {
+	public TestItemDao(final Database database) {
+		super(database, TestItem.class);
+	}
+}
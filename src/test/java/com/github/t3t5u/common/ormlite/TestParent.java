@@ -0,0 +1,37 @@
+package com.github.t3t5u.common.ormlite;
+
+import java.util.Collection;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.field.ForeignCollectionField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@SuppressWarnings("serial")
+@DatabaseTable(tableName = "test_parent")
+public class TestParent extends AbstractJoinableEntity {
+	@DatabaseField(generatedId = true)
+	private long id;
+	@DatabaseField
+	private String name;
+	@ForeignCollectionField
+	private Collection<TestChild> children;
+
+	public TestParent() {
+	}
+
+	public TestParent(final String name) {
+		this.name = name;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Collection<TestChild> getChildren() {
+		return children;
+	}
+}
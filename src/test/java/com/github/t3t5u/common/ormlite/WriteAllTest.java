@@ -0,0 +1,55 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WriteAllTest {
+	private TestDatabase database;
+	private BatchedItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new BatchedItemDao(database);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		database.close();
+	}
+
+	@Test
+	public void writesInChunks() {
+		final long[] result = dao.insertAll(Arrays.asList(new TestItem("a", 1), new TestItem("b", 2), new TestItem("c", 3)));
+		assertArrayEquals(new long[] { 2, 1 }, result);
+		assertEquals(3, dao.count());
+	}
+
+	@Test
+	public void joinsCallerTransaction() {
+		dao.begin();
+		try {
+			dao.insertAll(Arrays.asList(new TestItem("a", 1), new TestItem("b", 2), new TestItem("c", 3)));
+		} finally {
+			dao.rollback();
+		}
+		assertEquals(0, dao.count());
+	}
+
+	private static final class BatchedItemDao extends AbstractDao<TestItem> {
+		private BatchedItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected int getBatchSize() {
+			return 2;
+		}
+	}
+}
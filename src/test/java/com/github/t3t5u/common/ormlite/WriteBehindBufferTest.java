@@ -0,0 +1,150 @@
+package com.github.t3t5u.common.ormlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.table.TableUtils;
+
+public class WriteBehindBufferTest {
+	private TestDatabase database;
+	private BufferedItemDao dao;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new TestDatabase();
+		dao = new BufferedItemDao(database);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		dao.close();
+		database.close();
+	}
+
+	@Test
+	public void failedEntitiesAreRequeued() throws Exception {
+		TableUtils.dropTable(database.getConnectionSource(), TestItem.class, false);
+		dao.writeBehind(new TestItem("a", 1));
+		dao.writeBehind(new TestItem("b", 2));
+		dao.writeBehind(new TestItem("c", 3));
+		assertEquals(0, dao.flush());
+		assertEquals(3, dao.getWriteBehindBuffer().size());
+		assertEquals(3, dao.getWriteBehindBuffer().getFailureCount());
+		TableUtils.createTable(database.getConnectionSource(), TestItem.class);
+		assertEquals(3, dao.flush());
+		assertEquals(0, dao.getWriteBehindBuffer().size());
+		assertEquals(3, dao.findAll().size());
+	}
+
+	@Test
+	public void onlyFailedEntitiesAreRequeued() throws Exception {
+		dao.getDao().executeRaw("ALTER TABLE test_item ADD CONSTRAINT qty_check CHECK (qty >= 0)");
+		dao.writeBehind(new TestItem("a", 1));
+		dao.writeBehind(new TestItem("b", -1));
+		dao.writeBehind(new TestItem("c", 3));
+		assertEquals(2, dao.flush());
+		assertEquals(1, dao.getWriteBehindBuffer().size());
+		assertEquals(1, dao.getWriteBehindBuffer().getFailureCount());
+		assertEquals(2, dao.findAll().size());
+	}
+
+	@Test
+	public void fullBufferRejectsWritesWhenFlushFails() throws Exception {
+		final BoundedItemDao boundedDao = new BoundedItemDao(database);
+		TableUtils.dropTable(database.getConnectionSource(), TestItem.class, false);
+		assertTrue(boundedDao.writeBehind(new TestItem("a", 1)));
+		assertTrue(boundedDao.writeBehind(new TestItem("b", 2)));
+		assertFalse(boundedDao.writeBehind(new TestItem("c", 3)));
+		assertEquals(2, boundedDao.getWriteBehindBuffer().size());
+		assertEquals(1, boundedDao.getWriteBehindBuffer().getRejectedCount());
+	}
+
+	@Test
+	public void entitiesAreDroppedAfterMaxRetries() throws Exception {
+		final BoundedItemDao boundedDao = new BoundedItemDao(database);
+		TableUtils.dropTable(database.getConnectionSource(), TestItem.class, false);
+		boundedDao.writeBehind(new TestItem("a", 1));
+		assertEquals(0, boundedDao.flush());
+		assertEquals(1, boundedDao.getWriteBehindBuffer().size());
+		assertEquals(0, boundedDao.flush());
+		assertEquals(0, boundedDao.getWriteBehindBuffer().size());
+		assertEquals(1, boundedDao.getWriteBehindBuffer().getDroppedCount());
+	}
+
+	@Test
+	public void closeFlushesPendingWrites() {
+		dao.writeBehind(new TestItem("a", 1));
+		dao.close();
+		assertTrue(dao.getWriteBehindBuffer().isClosed());
+		assertEquals(1, dao.findAll().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void writeAfterCloseIsRejected() {
+		dao.close();
+		dao.writeBehind(new TestItem("a", 1));
+	}
+
+	private static final class BufferedItemDao extends AbstractDao<TestItem> {
+		private BufferedItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected int getWriteBehindSize() {
+			return 16;
+		}
+
+		@Override
+		protected long getWriteBehindInterval() {
+			return 0;
+		}
+
+		@Override
+		protected int getBatchSize() {
+			return 2;
+		}
+	}
+
+	private static final class BoundedItemDao extends AbstractDao<TestItem> {
+		private BoundedItemDao(final Database database) {
+			super(database, TestItem.class);
+		}
+
+		@Override
+		protected int getWriteBehindSize() {
+			return 2;
+		}
+
+		@Override
+		protected int getWriteBehindCapacity() {
+			return 2;
+		}
+
+		@Override
+		protected long getWriteBehindInterval() {
+			return 0;
+		}
+
+		@Override
+		protected int getWriteBehindRetries() {
+			return 1;
+		}
+
+		@Override
+		protected Executor getWriteBehindExecutor() {
+			return new Executor() {
+				@Override
+				public void execute(final Runnable command) {
+				}
+			};
+		}
+	}
+}